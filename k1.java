@@ -1,23 +1,38 @@
+import java.io.*;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
 
 // === Direction as Enum with behavior ===
 enum Direction {
-    NORTH, EAST, SOUTH, WEST;
+    NORTH(0, 1), EAST(1, 0), SOUTH(0, -1), WEST(-1, 0);
     private static final List<Direction> order = List.of(NORTH, EAST, SOUTH, WEST);
+    private final int dx, dy;
+
+    Direction(int dx, int dy) { this.dx = dx; this.dy = dy; }
+
+    public int getDx() { return dx; }
+    public int getDy() { return dy; }
 
     public Direction left() {
-        return order.get((order.indexOf(this) + 3) % 4);
+        return order.get((ordinal() + 3) % 4);
     }
     public Direction right() {
-        return order.get((order.indexOf(this) + 1) % 4);
+        return order.get((ordinal() + 1) % 4);
+    }
+    public Direction rotate(int quarterTurns) {
+        return order.get((ordinal() + quarterTurns) & 3);
     }
     public Position move(Position pos) {
-        return switch (this) {
-            case NORTH -> pos.translate(0, 1);
-            case EAST  -> pos.translate(1, 0);
-            case SOUTH -> pos.translate(0, -1);
-            case WEST  -> pos.translate(-1, 0);
-        };
+        return pos.translate(dx, dy);
+    }
+    public long move(long packed) {
+        return Position.pack(Position.unpackX(packed) + dx, Position.unpackY(packed) + dy);
     }
 }
 
@@ -28,56 +43,772 @@ class Position {
     public int getX() { return x; }
     public int getY() { return y; }
     public Position translate(int dx, int dy) { return new Position(x + dx, y + dy); }
+    public long pack() { return pack(x, y); }
     public boolean equals(Object o) {
         if (!(o instanceof Position p)) return false;
         return x == p.x && y == p.y;
     }
-    public int hashCode() { return Objects.hash(x, y); }
+    public int hashCode() { return 31 * x + y; }
     public String toString() { return "(" + x + ", " + y + ")"; }
+
+    // Primitive form for hot paths: x in the high 32 bits, y in the low 32 bits.
+    public static long pack(int x, int y) { return ((long) x << 32) | (y & 0xFFFFFFFFL); }
+    public static int unpackX(long packed) { return (int) (packed >> 32); }
+    public static int unpackY(long packed) { return (int) packed; }
+    public static Position unpack(long packed) { return new Position(unpackX(packed), unpackY(packed)); }
 }
 
 // === Composite Grid ===
 interface Terrain {
     boolean isBlocked(Position pos);
+    default boolean isBlocked(long packed) { return isBlocked(Position.unpack(packed)); }
+    // False only if no cell in the inclusive rectangle can be blocked; the default
+    // cannot tell, so it answers true.
+    default boolean mayBlock(int minX, int minY, int maxX, int maxY) { return true; }
 }
 class EmptyCell implements Terrain {
     public boolean isBlocked(Position pos) { return false; }
+    public boolean isBlocked(long packed) { return false; }
+    public boolean mayBlock(int minX, int minY, int maxX, int maxY) { return false; }
 }
 class Obstacle implements Terrain {
     private final Position position;
-    public Obstacle(Position pos) { this.position = pos; }
+    private final long packed;
+    public Obstacle(Position pos) { this.position = pos; this.packed = pos.pack(); }
+    public Position getPosition() { return position; }
     public boolean isBlocked(Position pos) { return position.equals(pos); }
+    public boolean isBlocked(long packed) { return this.packed == packed; }
 }
 class Grid implements Terrain {
     private final int width, height;
     private final List<Terrain> children = new ArrayList<>();
+    // Plain obstacles are indexed in a hash set of packed positions and regions in an
+    // R-tree; any other Terrain, including Obstacle subclasses, is checked one by one.
+    // The index grows with the obstacles, not with the bounds.
+    private final PackedSet occupied = new PackedSet();
+    private final List<Region> regions = new ArrayList<>();
+    private RegionIndex regionIndex; // rebuilt on first query after an add; all fields final, so racing rebuilds are harmless
+    private final List<Terrain> residual = new ArrayList<>();
     public Grid(int width, int height) { this.width = width; this.height = height; }
-    public void add(Terrain t) { children.add(t); }
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public List<Terrain> getChildren() { return Collections.unmodifiableList(children); }
+    public void add(Terrain t) {
+        children.add(t);
+        if (t.getClass() == Obstacle.class) {
+            Position p = ((Obstacle) t).getPosition();
+            if (inBounds(p.getX(), p.getY())) occupied.add(p.pack());
+        } else if (t instanceof Region r) {
+            regions.add(r);
+            regionIndex = null;
+        } else if (!(t instanceof EmptyCell)) {
+            residual.add(t);
+        }
+    }
+    public boolean isBlocked(Position pos) {
+        if (isIndexed(pos.getX(), pos.getY())) return true;
+        for (int i = 0; i < residual.size(); i++) {
+            if (residual.get(i).isBlocked(pos)) return true;
+        }
+        return false;
+    }
+    public boolean isBlocked(long packed) {
+        if (isIndexed(Position.unpackX(packed), Position.unpackY(packed))) return true;
+        for (int i = 0; i < residual.size(); i++) {
+            if (residual.get(i).isBlocked(packed)) return true;
+        }
+        return false;
+    }
+    public boolean mayBlock(int minX, int minY, int maxX, int maxY) {
+        if (minX < 0 || maxX >= width || minY < 0 || maxY >= height) return true;
+        if (occupied.anyIn(minX, minY, maxX, maxY)) return true;
+        if (!regions.isEmpty() && regions().mayBlock(minX, minY, maxX, maxY)) return true;
+        for (int i = 0; i < residual.size(); i++) {
+            if (residual.get(i).mayBlock(minX, minY, maxX, maxY)) return true;
+        }
+        return false;
+    }
+    private boolean isIndexed(int x, int y) {
+        if (!inBounds(x, y) || occupied.contains(Position.pack(x, y))) return true;
+        return !regions.isEmpty() && regions().contains(x, y);
+    }
+    private boolean inBounds(int x, int y) { return x >= 0 && x < width && y >= 0 && y < height; }
+    private RegionIndex regions() {
+        RegionIndex index = regionIndex;
+        if (index == null) regionIndex = index = new RegionIndex(regions);
+        return index;
+    }
+}
+
+// === Area Obstacles ===
+// Obstacles covering many cells: a cell is blocked when its integer coordinates lie
+// inside the shape or on its boundary. Every region knows its bounding box, which is
+// what RegionIndex sorts and prunes on.
+abstract class Region implements Terrain {
+    protected final int minX, minY, maxX, maxY;
+    protected Region(int minX, int minY, int maxX, int maxY) {
+        if (minX > maxX || minY > maxY) throw new IllegalArgumentException("Empty region");
+        this.minX = minX; this.minY = minY; this.maxX = maxX; this.maxY = maxY;
+    }
+    public int getMinX() { return minX; }
+    public int getMinY() { return minY; }
+    public int getMaxX() { return maxX; }
+    public int getMaxY() { return maxY; }
+    public abstract boolean contains(int x, int y);
+    public boolean isBlocked(Position pos) { return contains(pos.getX(), pos.getY()); }
+    public boolean isBlocked(long packed) { return contains(Position.unpackX(packed), Position.unpackY(packed)); }
+    public boolean mayBlock(int minX, int minY, int maxX, int maxY) {
+        return minX <= this.maxX && maxX >= this.minX && minY <= this.maxY && maxY >= this.minY;
+    }
+    // Sets the region's cells that fall inside the bitmap.
+    void rasterize(OccupancyBitmap bits) {
+        for (int y = Math.max(minY, 0); y <= Math.min(maxY, bits.getHeight() - 1); y++)
+            for (int x = Math.max(minX, 0); x <= Math.min(maxX, bits.getWidth() - 1); x++)
+                if (contains(x, y)) bits.set(x, y);
+    }
+}
+class RectangleRegion extends Region {
+    public RectangleRegion(int minX, int minY, int maxX, int maxY) { super(minX, minY, maxX, maxY); }
+    public boolean contains(int x, int y) { return x >= minX && x <= maxX && y >= minY && y <= maxY; }
+}
+class CircleRegion extends Region {
+    private final int cx, cy;
+    private final long radiusSquared;
+    public CircleRegion(Position center, int radius) {
+        super(edge(center.getX(), -radius(radius)), edge(center.getY(), -radius(radius)),
+              edge(center.getX(), radius), edge(center.getY(), radius));
+        this.cx = center.getX(); this.cy = center.getY();
+        this.radiusSquared = (long) radius * radius;
+    }
+    private static long radius(int radius) {
+        if (radius < 0) throw new IllegalArgumentException("Negative radius: " + radius);
+        return radius;
+    }
+    private static int edge(int centre, long offset) {
+        long edge = centre + offset;
+        if (edge != (int) edge) throw new IllegalArgumentException("Circle extends past the int coordinate range");
+        return (int) edge;
+    }
+    // Inside the box |dx| and |dy| are at most the radius, so the sum cannot overflow.
+    public boolean contains(int x, int y) {
+        if (x < minX || x > maxX || y < minY || y > maxY) return false;
+        long dx = (long) x - cx, dy = (long) y - cy;
+        return dx * dx + dy * dy <= radiusSquared;
+    }
+}
+class PolygonRegion extends Region {
+    private final int[] xs, ys;
+    private final int orientation; // +1 counter-clockwise, -1 clockwise
+
+    // Vertices in either winding order; collinear vertices are allowed.
+    public PolygonRegion(List<Position> vertices) {
+        super(vertices.stream().mapToInt(Position::getX).min().orElse(1),
+              vertices.stream().mapToInt(Position::getY).min().orElse(1),
+              vertices.stream().mapToInt(Position::getX).max().orElse(0),
+              vertices.stream().mapToInt(Position::getY).max().orElse(0));
+        int n = vertices.size();
+        xs = new int[n]; ys = new int[n];
+        for (int i = 0; i < n; i++) { xs[i] = vertices.get(i).getX(); ys[i] = vertices.get(i).getY(); }
+        // Convex means every turn has the same sign and the edges wind around once, which
+        // shows as the x direction of the edges flipping at most twice.
+        int sign = 0, flips = 0, lastDx = 0;
+        for (int i = 0; i < n && n >= 3; i++) {
+            int j = (i + 1) % n, k = (i + 2) % n;
+            int turn = cross(xs[i], ys[i], xs[j], ys[j], xs[k], ys[k]);
+            int dx = Integer.compare(xs[j], xs[i]);
+            if (dx != 0) {
+                if (lastDx != 0 && dx != lastDx) flips++;
+                lastDx = dx;
+            }
+            if (turn == 0) continue;
+            if (sign == 0) sign = turn;
+            else if (sign != turn) throw new IllegalArgumentException("Polygon is not convex");
+        }
+        if (sign == 0) throw new IllegalArgumentException("Polygon needs three non-collinear vertices");
+        if (flips > 2) throw new IllegalArgumentException("Polygon is not convex");
+        this.orientation = sign;
+    }
+    public boolean contains(int x, int y) {
+        if (x < minX || x > maxX || y < minY || y > maxY) return false;
+        for (int i = 0, n = xs.length; i < n; i++) {
+            int j = i + 1 == n ? 0 : i + 1;
+            if (orientation * cross(xs[i], ys[i], xs[j], ys[j], x, y) < 0) return false;
+        }
+        return true;
+    }
+    // Sign of the cross product (b - a) x (p - a). The differences take 33 bits, so each
+    // product is compared as a full 128-bit value.
+    private static int cross(long ax, long ay, long bx, long by, long px, long py) {
+        long a = bx - ax, b = py - ay, c = by - ay, d = px - ax;
+        long high = Math.multiplyHigh(a, b), otherHigh = Math.multiplyHigh(c, d);
+        if (high != otherHigh) return Long.compare(high, otherHigh);
+        return Long.signum(Long.compareUnsigned(a * b, c * d));
+    }
+}
+
+// Static R-tree over regions, bulk loaded with Sort-Tile-Recursive packing: each level
+// is sorted into vertical slices by box centre, each slice by centre y, and runs of
+// FANOUT entries become one parent. Level 0 holds the regions; a node at level l > 0
+// covers children [start, end) of level l - 1; boxes are stored interleaved as
+// minX, minY, maxX, maxY per node. A point query descends only into boxes
+// containing the point and stops at the first region that contains it.
+final class RegionIndex implements Terrain {
+    private static final int FANOUT = 16;
+    private final Region[] regions;
+    private final int[][] boxes, start, end; // [level][node], boxes [level][4 * node]
+
+    public RegionIndex(List<? extends Region> input) {
+        regions = input.toArray(new Region[0]);
+        List<int[][]> levels = new ArrayList<>();
+        int n = regions.length;
+        int[][] level = new int[6][n];
+        for (int i = 0; i < n; i++) {
+            Region r = regions[i];
+            level[0][i] = r.minX; level[1][i] = r.minY; level[2][i] = r.maxX; level[3][i] = r.maxY;
+            level[4][i] = i; level[5][i] = i + 1;
+        }
+        level = sortTiles(level);
+        levels.add(level);
+        while (level[0].length > 1) {
+            int size = level[0].length, parents = (size + FANOUT - 1) / FANOUT;
+            int[][] up = new int[6][parents];
+            for (int p = 0; p < parents; p++) {
+                int from = p * FANOUT, to = Math.min(from + FANOUT, size);
+                up[0][p] = up[1][p] = Integer.MAX_VALUE;
+                up[2][p] = up[3][p] = Integer.MIN_VALUE;
+                for (int c = from; c < to; c++) {
+                    up[0][p] = Math.min(up[0][p], level[0][c]); up[1][p] = Math.min(up[1][p], level[1][c]);
+                    up[2][p] = Math.max(up[2][p], level[2][c]); up[3][p] = Math.max(up[3][p], level[3][c]);
+                }
+                up[4][p] = from; up[5][p] = to;
+            }
+            level = sortTiles(up);
+            levels.add(level);
+        }
+        int depth = levels.size();
+        boxes = new int[depth][]; start = new int[depth][]; end = new int[depth][];
+        for (int l = 0; l < depth; l++) {
+            int[][] lv = levels.get(l);
+            int size = lv[0].length;
+            boxes[l] = new int[4 * size];
+            for (int i = 0; i < size; i++) {
+                boxes[l][4 * i] = lv[0][i]; boxes[l][4 * i + 1] = lv[1][i];
+                boxes[l][4 * i + 2] = lv[2][i]; boxes[l][4 * i + 3] = lv[3][i];
+            }
+            start[l] = lv[4]; end[l] = lv[5];
+        }
+    }
+
+    public int size() { return regions.length; }
+    public boolean isBlocked(Position pos) { return contains(pos.getX(), pos.getY()); }
+    public boolean isBlocked(long packed) { return contains(Position.unpackX(packed), Position.unpackY(packed)); }
+    public boolean contains(int x, int y) {
+        int top = boxes.length - 1;
+        return boxes[top].length > 0 && contains(top, 0, x, y);
+    }
+    public boolean mayBlock(int x0, int y0, int x1, int y1) {
+        int top = boxes.length - 1;
+        return boxes[top].length > 0 && overlaps(top, 0, x0, y0, x1, y1);
+    }
+
+    private boolean contains(int l, int i, int x, int y) {
+        int[] box = boxes[l];
+        int b = 4 * i;
+        if (x < box[b] || y < box[b + 1] || x > box[b + 2] || y > box[b + 3]) return false;
+        if (l == 0) return regions[start[0][i]].contains(x, y);
+        for (int c = start[l][i], e = end[l][i]; c < e; c++) if (contains(l - 1, c, x, y)) return true;
+        return false;
+    }
+    private boolean overlaps(int l, int i, int x0, int y0, int x1, int y1) {
+        int[] box = boxes[l];
+        int b = 4 * i;
+        if (x1 < box[b] || y1 < box[b + 1] || x0 > box[b + 2] || y0 > box[b + 3]) return false;
+        if (l == 0) return regions[start[0][i]].mayBlock(x0, y0, x1, y1);
+        for (int c = start[l][i], e = end[l][i]; c < e; c++) if (overlaps(l - 1, c, x0, y0, x1, y1)) return true;
+        return false;
+    }
+
+    // Reorders one level's columns into STR order.
+    private static int[][] sortTiles(int[][] level) {
+        int n = level[0].length;
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingLong(i -> (long) level[0][i] + level[2][i]));
+        int slice = FANOUT * (int) Math.ceil(Math.sqrt(Math.ceil(n / (double) FANOUT)));
+        for (int from = 0; from < n; from += slice)
+            Arrays.sort(order, from, Math.min(from + slice, n), Comparator.comparingLong(i -> (long) level[1][i] + level[3][i]));
+        int[][] sorted = new int[6][n];
+        for (int k = 0; k < 6; k++)
+            for (int i = 0; i < n; i++) sorted[k][i] = level[k][order[i]];
+        return sorted;
+    }
+}
+
+// === Frozen Terrain ===
+// Flattens a Grid tree into one bitmap over the root bounds: obstacles, region cells
+// and the cells outside each nested grid's bounds become bits, and any other Terrain is kept in a
+// residual array checked after the bitmap. Nothing is written after construction,
+// so a frozen terrain can be shared across threads without locking.
+final class FrozenTerrain implements Terrain {
+    private final OccupancyBitmap bits;
+    private final Terrain[] residual;
+
+    private FrozenTerrain(OccupancyBitmap bits, Terrain[] residual) {
+        this.bits = bits; this.residual = residual;
+    }
+
+    // Largest grid that is compiled into a dense bitmap (32 MiB of bits).
+    static final long MAX_CELLS = 1L << 28;
+
+    // Grids are compiled; any other terrain is already flat and returned unchanged, as
+    // is a grid whose bounds are negative or too large for a dense bitmap.
+    public static Terrain freeze(Terrain root) {
+        if (!(root instanceof Grid grid)) return root;
+        if (grid.getWidth() < 0 || grid.getHeight() < 0 || (long) grid.getWidth() * grid.getHeight() > MAX_CELLS) return root;
+        OccupancyBitmap bits = new OccupancyBitmap(grid.getWidth(), grid.getHeight());
+        List<Terrain> residual = new ArrayList<>();
+        for (Terrain child : grid.getChildren()) flatten(child, bits, residual);
+        return new FrozenTerrain(bits, residual.toArray(new Terrain[0]));
+    }
+    private static void flatten(Terrain t, OccupancyBitmap bits, List<Terrain> residual) {
+        if (t.getClass() == Obstacle.class) {
+            Position p = ((Obstacle) t).getPosition();
+            if (bits.contains(p.getX(), p.getY())) bits.set(p.getX(), p.getY());
+        } else if (t instanceof Region r) {
+            r.rasterize(bits);
+        } else if (t instanceof Grid g) {
+            blockOutside(bits, g.getWidth(), g.getHeight());
+            for (Terrain child : g.getChildren()) flatten(child, bits, residual);
+        } else if (t instanceof FrozenTerrain f) {
+            blockOutside(bits, f.bits.getWidth(), f.bits.getHeight());
+            for (int y = 0; y < Math.min(bits.getHeight(), f.bits.getHeight()); y++)
+                for (int x = 0; x < Math.min(bits.getWidth(), f.bits.getWidth()); x++)
+                    if (f.bits.get(x, y)) bits.set(x, y);
+            residual.addAll(Arrays.asList(f.residual));
+        } else if (!(t instanceof EmptyCell)) {
+            residual.add(t);
+        }
+    }
+    // A child with a negative size covers nothing, so every cell outside it is blocked.
+    private static void blockOutside(OccupancyBitmap bits, int width, int height) {
+        width = Math.max(0, width);
+        height = Math.max(0, height);
+        for (int y = 0; y < bits.getHeight(); y++)
+            for (int x = y < height ? width : 0; x < bits.getWidth(); x++) bits.set(x, y);
+    }
+
     public boolean isBlocked(Position pos) {
-        if (pos.getX() < 0 || pos.getX() >= width || pos.getY() < 0 || pos.getY() >= height) return true;
-        return children.stream().anyMatch(c -> c.isBlocked(pos));
+        int x = pos.getX(), y = pos.getY();
+        if (!bits.contains(x, y) || bits.get(x, y)) return true;
+        for (Terrain t : residual) if (t.isBlocked(pos)) return true;
+        return false;
+    }
+    public boolean isBlocked(long packed) {
+        int x = Position.unpackX(packed), y = Position.unpackY(packed);
+        if (!bits.contains(x, y) || bits.get(x, y)) return true;
+        for (Terrain t : residual) if (t.isBlocked(packed)) return true;
+        return false;
+    }
+}
+
+// === Chunked Sparse Grid ===
+// Bounded like Grid, but obstacle bits live in 256x256 tiles that are only allocated
+// when the first obstacle lands in them, so huge, mostly empty maps stay small.
+class ChunkedGrid implements Terrain {
+    private static final int TILE_SHIFT = 8, TILE_SIZE = 1 << TILE_SHIFT, TILE_MASK = TILE_SIZE - 1;
+    private final int width, height;
+    private final long[][][] tiles; // [tileY][tileX][word], rows and tiles allocated lazily
+
+    public ChunkedGrid(int width, int height) {
+        if (width < 0 || height < 0) throw new IllegalArgumentException("Negative size: " + width + "x" + height);
+        this.width = width; this.height = height;
+        this.tiles = new long[(height + TILE_MASK) >>> TILE_SHIFT][][];
+    }
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public void add(Obstacle o) { block(o.getPosition().getX(), o.getPosition().getY()); }
+    public void block(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) return;
+        long[][] row = tiles[y >>> TILE_SHIFT];
+        if (row == null) row = tiles[y >>> TILE_SHIFT] = new long[(width + TILE_MASK) >>> TILE_SHIFT][];
+        long[] tile = row[x >>> TILE_SHIFT];
+        if (tile == null) tile = row[x >>> TILE_SHIFT] = new long[TILE_SIZE * TILE_SIZE / 64];
+        int bit = (y & TILE_MASK) << TILE_SHIFT | (x & TILE_MASK);
+        tile[bit >>> 6] |= 1L << bit;
+    }
+    public boolean isBlocked(Position pos) { return isBlocked(pos.getX(), pos.getY()); }
+    public boolean isBlocked(long packed) { return isBlocked(Position.unpackX(packed), Position.unpackY(packed)); }
+    private boolean isBlocked(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) return true;
+        long[][] row = tiles[y >>> TILE_SHIFT];
+        if (row == null) return false;
+        long[] tile = row[x >>> TILE_SHIFT];
+        if (tile == null) return false;
+        int bit = (y & TILE_MASK) << TILE_SHIFT | (x & TILE_MASK);
+        return (tile[bit >>> 6] & (1L << bit)) != 0;
+    }
+}
+
+// === Memory-mapped Terrain File ===
+// Layout (little-endian): int magic 'MRTN', int version, int width, int height,
+// then ceil(width * height / 64) longs where bit (y * width + x) marks a blocked cell.
+class MappedTerrain implements Terrain {
+    static final int MAGIC = 0x4D52544E, VERSION = 1, HEADER_BYTES = 16;
+    private static final int SEGMENT_SHIFT = 27; // 2^27 words = 1 GiB per mapping
+    private final int width, height;
+    private final ByteBuffer[] segments;
+
+    private MappedTerrain(int width, int height, ByteBuffer[] segments) {
+        this.width = width; this.height = height; this.segments = segments;
+    }
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+
+    public static MappedTerrain open(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && ch.read(header) >= 0) { }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != VERSION)
+                throw new IOException("Not a terrain file: " + path);
+            int width = header.getInt(), height = header.getInt();
+            long words = ((long) width * height + 63) >>> 6;
+            if (width < 0 || height < 0 || ch.size() < HEADER_BYTES + words * 8)
+                throw new IOException("Truncated terrain file: " + path);
+            ByteBuffer[] segments = new ByteBuffer[(int) ((words + (1L << SEGMENT_SHIFT) - 1) >>> SEGMENT_SHIFT)];
+            for (int i = 0; i < segments.length; i++) {
+                long first = (long) i << SEGMENT_SHIFT;
+                long count = Math.min(1L << SEGMENT_SHIFT, words - first);
+                segments[i] = ch.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + first * 8, count * 8)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return new MappedTerrain(width, height, segments);
+        }
+    }
+
+    // Samples source over [0, width) x [0, height) and writes it in the format above.
+    public static void write(Path path, int width, int height, Terrain source) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), 1 << 16)) {
+            ByteBuffer buf = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            out.write(ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height).array());
+            long cells = (long) width * height, word = 0;
+            for (long i = 0; i < cells; i++) {
+                if (source.isBlocked(Position.pack((int) (i % width), (int) (i / width)))) word |= 1L << i;
+                if ((i & 63) == 63 || i == cells - 1) {
+                    out.write(buf.putLong(0, word).array());
+                    word = 0;
+                }
+            }
+        }
+    }
+
+    public boolean isBlocked(Position pos) { return isBlocked(pos.getX(), pos.getY()); }
+    public boolean isBlocked(long packed) { return isBlocked(Position.unpackX(packed), Position.unpackY(packed)); }
+    private boolean isBlocked(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) return true;
+        long i = (long) y * width + x, word = i >>> 6;
+        ByteBuffer segment = segments[(int) (word >>> SEGMENT_SHIFT)];
+        return (segment.getLong((int) (word & ((1L << SEGMENT_SHIFT) - 1)) << 3) & (1L << i)) != 0;
+    }
+}
+
+// === Concurrent Mutable Terrain ===
+// Obstacles that come and go while rovers move: one bit per cell in a long[] that is
+// only touched through atomic VarHandle operations. add/remove are a single
+// getAndBitwiseOr/And on the cell's word, so they are lock-free and return whether
+// they changed the cell. isBlocked is a single acquire load, so it is wait-free and
+// sees either the state before or after any concurrent update of that cell. Cells
+// outside the bounds are blocked, as in Grid. The answer can go stale as soon as it is
+// returned, so callers that need several cells to agree must coordinate themselves.
+class MutableTerrain implements Terrain {
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+    private final int width, height;
+    private final long[] words;
+
+    public MutableTerrain(int width, int height) {
+        if (width < 0 || height < 0) throw new IllegalArgumentException("Negative size: " + width + "x" + height);
+        this.width = width; this.height = height;
+        this.words = new long[Math.toIntExact(((long) width * height + 63) >>> 6)];
+    }
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+
+    // True if the cell was free before. Out-of-bounds cells are always blocked.
+    public boolean add(Position pos) { return add(pos.getX(), pos.getY()); }
+    public boolean add(int x, int y) {
+        if (!contains(x, y)) return false;
+        long i = (long) y * width + x, bit = 1L << i;
+        return ((long) WORDS.getAndBitwiseOr(words, (int) (i >>> 6), bit) & bit) == 0;
+    }
+    // True if the cell was blocked before.
+    public boolean remove(Position pos) { return remove(pos.getX(), pos.getY()); }
+    public boolean remove(int x, int y) {
+        if (!contains(x, y)) return false;
+        long i = (long) y * width + x, bit = 1L << i;
+        return ((long) WORDS.getAndBitwiseAnd(words, (int) (i >>> 6), ~bit) & bit) != 0;
+    }
+
+    public boolean isBlocked(Position pos) { return isBlocked(pos.getX(), pos.getY()); }
+    public boolean isBlocked(long packed) { return isBlocked(Position.unpackX(packed), Position.unpackY(packed)); }
+    public boolean isBlocked(int x, int y) {
+        if (!contains(x, y)) return true;
+        long i = (long) y * width + x;
+        return ((long) WORDS.getAcquire(words, (int) (i >>> 6)) & (1L << i)) != 0;
+    }
+    private boolean contains(int x, int y) { return x >= 0 && x < width && y >= 0 && y < height; }
+}
+
+// === Procedural Terrain ===
+// An unbounded synthetic world: a cell is blocked when fractal value noise at its
+// coordinates reaches threshold (0..1, higher means fewer obstacles). Lattice values
+// come from an integer hash of (seed, octave, lattice point), so a seed always yields
+// the same world. Cells are evaluated a 64x64 tile at a time, one long per tile row,
+// the first time a tile is touched. At most maxTiles tiles are kept, evicting the
+// least recently used. The LRU map is guarded by a lock; the last tile looked up is
+// also kept in an immutable holder, so a rover walking within one tile skips the lock.
+class ProceduralTerrain implements Terrain {
+    private static final int TILE_SHIFT = 6, TILE = 1 << TILE_SHIFT;
+    private final long seed;
+    private final int featureSize, octaves;
+    private final double threshold;
+    private final Map<Long, Tile> tiles;
+    private volatile Tile last;
+    private long generated;
+
+    private static final class Tile {
+        final long key;
+        final long[] rows;
+        Tile(long key, long[] rows) { this.key = key; this.rows = rows; }
+    }
+
+    public ProceduralTerrain(long seed, double threshold) { this(seed, 32, 3, threshold, 1024); }
+    public ProceduralTerrain(long seed, int featureSize, int octaves, double threshold, int maxTiles) {
+        if (featureSize < 1 || octaves < 1 || maxTiles < 1) throw new IllegalArgumentException("Feature size, octaves and cache size must be positive");
+        this.seed = seed; this.featureSize = featureSize; this.octaves = octaves; this.threshold = threshold;
+        this.tiles = new LinkedHashMap<>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<Long, Tile> eldest) { return size() > maxTiles; }
+        };
+    }
+
+    public boolean isBlocked(Position pos) { return isBlocked(pos.getX(), pos.getY()); }
+    public boolean isBlocked(long packed) { return isBlocked(Position.unpackX(packed), Position.unpackY(packed)); }
+    public boolean isBlocked(int x, int y) {
+        long key = Position.pack(x >> TILE_SHIFT, y >> TILE_SHIFT);
+        Tile t = last;
+        if (t == null || t.key != key) last = t = tile(key);
+        return (t.rows[y & (TILE - 1)] & (1L << x)) != 0;
+    }
+    // Tiles computed so far, including ones computed again after eviction.
+    public synchronized long getTilesGenerated() { return generated; }
+    public synchronized int getCachedTiles() { return tiles.size(); }
+
+    private synchronized Tile tile(long key) {
+        Tile t = tiles.get(key);
+        if (t == null) {
+            tiles.put(key, t = new Tile(key, generate(Position.unpackX(key) << TILE_SHIFT, Position.unpackY(key) << TILE_SHIFT)));
+            generated++;
+        }
+        return t;
+    }
+
+    // Same arithmetic as noise(x, y) for every cell of the tile, but each lattice value
+    // is hashed once per tile instead of four times per cell.
+    private long[] generate(int x0, int y0) {
+        double[] sum = new double[TILE * TILE];
+        double weight = 1, total = 0;
+        for (int o = 0, size = featureSize; o < octaves; o++, size = Math.max(1, size >> 1), weight *= 0.5) {
+            int gx0 = Math.floorDiv(x0, size), gy0 = Math.floorDiv(y0, size);
+            int nx = Math.floorDiv(x0 + TILE - 1, size) - gx0 + 2, ny = Math.floorDiv(y0 + TILE - 1, size) - gy0 + 2;
+            double[] lattice = new double[nx * ny];
+            for (int j = 0; j < ny; j++)
+                for (int i = 0; i < nx; i++) lattice[j * nx + i] = lattice(gx0 + i, gy0 + j, o);
+            int[] column = new int[TILE];
+            double[] fxs = new double[TILE];
+            for (int dx = 0; dx < TILE; dx++) {
+                int x = x0 + dx, gx = Math.floorDiv(x, size);
+                column[dx] = gx - gx0;
+                fxs[dx] = smooth((x - (long) gx * size) / (double) size);
+            }
+            for (int dy = 0; dy < TILE; dy++) {
+                int y = y0 + dy, gy = Math.floorDiv(y, size), row = (gy - gy0) * nx;
+                double fy = smooth((y - (long) gy * size) / (double) size);
+                for (int dx = 0; dx < TILE; dx++) {
+                    int at = row + column[dx];
+                    double fx = fxs[dx];
+                    double top = lerp(lattice[at], lattice[at + 1], fx);
+                    double bottom = lerp(lattice[at + nx], lattice[at + nx + 1], fx);
+                    sum[dy * TILE + dx] += weight * lerp(top, bottom, fy);
+                }
+            }
+            total += weight;
+        }
+        long[] rows = new long[TILE];
+        for (int dy = 0; dy < TILE; dy++)
+            for (int dx = 0; dx < TILE; dx++)
+                if (sum[dy * TILE + dx] / total >= threshold) rows[dy] |= 1L << dx;
+        return rows;
+    }
+
+    // Sum of octaves of value noise, each half the feature size and weight of the one
+    // before, normalised back to [0, 1).
+    public double noise(int x, int y) {
+        double sum = 0, weight = 1, total = 0;
+        for (int o = 0, size = featureSize; o < octaves; o++, size = Math.max(1, size >> 1), weight *= 0.5) {
+            sum += weight * valueNoise(x, y, size, o);
+            total += weight;
+        }
+        return sum / total;
+    }
+    private double valueNoise(int x, int y, int size, int octave) {
+        int gx = Math.floorDiv(x, size), gy = Math.floorDiv(y, size);
+        double fx = smooth((x - (long) gx * size) / (double) size), fy = smooth((y - (long) gy * size) / (double) size);
+        double top = lerp(lattice(gx, gy, octave), lattice(gx + 1, gy, octave), fx);
+        double bottom = lerp(lattice(gx, gy + 1, octave), lattice(gx + 1, gy + 1, octave), fx);
+        return lerp(top, bottom, fy);
+    }
+    private double lattice(int gx, int gy, int octave) {
+        long h = seed + octave * 0xD1B54A32D192ED03L;
+        h = mix(h ^ gx * 0x9E3779B97F4A7C15L);
+        h = mix(h ^ gy * 0xC2B2AE3D27D4EB4FL);
+        return (h >>> 11) * 0x1p-53;
+    }
+    private static long mix(long z) { // SplitMix64 finaliser
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+    private static double smooth(double t) { return t * t * (3 - 2 * t); }
+    private static double lerp(double a, double b, double t) { return a + (b - a) * t; }
+}
+
+// === Packed Position Set ===
+// Open-addressing hash set of packed positions. 0 is the empty-slot marker, so the
+// origin (which packs to 0) is tracked by a separate flag.
+class PackedSet {
+    private long[] keys = new long[16];
+    private int size;
+    private boolean hasZero;
+
+    public int size() { return size + (hasZero ? 1 : 0); }
+    public boolean add(long key) {
+        if (key == 0) {
+            boolean added = !hasZero;
+            hasZero = true;
+            return added;
+        }
+        int mask = keys.length - 1;
+        for (int i = slot(key) & mask; ; i = (i + 1) & mask) {
+            if (keys[i] == key) return false;
+            if (keys[i] == 0) {
+                keys[i] = key;
+                if (++size * 2 > keys.length) grow();
+                return true;
+            }
+        }
+    }
+    public boolean contains(long key) {
+        if (key == 0) return hasZero;
+        int mask = keys.length - 1;
+        for (int i = slot(key) & mask; ; i = (i + 1) & mask) {
+            if (keys[i] == key) return true;
+            if (keys[i] == 0) return false;
+        }
+    }
+    // Whether any member lies in the inclusive rectangle: probes each cell when the
+    // rectangle is smaller than the set, otherwise scans the members.
+    public boolean anyIn(int minX, int minY, int maxX, int maxY) {
+        long area = ((long) maxX - minX + 1) * ((long) maxY - minY + 1);
+        if (area <= size()) {
+            for (int y = minY; y <= maxY; y++)
+                for (int x = minX; x <= maxX; x++) if (contains(Position.pack(x, y))) return true;
+            return false;
+        }
+        if (hasZero && minX <= 0 && maxX >= 0 && minY <= 0 && maxY >= 0) return true;
+        for (long key : keys) {
+            if (key == 0) continue;
+            int x = Position.unpackX(key), y = Position.unpackY(key);
+            if (x >= minX && x <= maxX && y >= minY && y <= maxY) return true;
+        }
+        return false;
+    }
+    private static int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+    private void grow() {
+        long[] old = keys;
+        keys = new long[old.length * 2];
+        int mask = keys.length - 1;
+        for (long key : old) {
+            if (key == 0) continue;
+            int i = slot(key) & mask;
+            while (keys[i] != 0) i = (i + 1) & mask;
+            keys[i] = key;
+        }
+    }
+}
+
+// === Packed Occupancy Bitmap ===
+class OccupancyBitmap {
+    private final int width, height;
+    private final long[] words;
+    public OccupancyBitmap(int width, int height) {
+        if (width < 0 || height < 0) throw new IllegalArgumentException("Negative size: " + width + "x" + height);
+        this.width = width; this.height = height;
+        this.words = new long[Math.toIntExact(((long) width * height + 63) >>> 6)];
+    }
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public boolean contains(int x, int y) { return x >= 0 && x < width && y >= 0 && y < height; }
+    public boolean get(int x, int y) {
+        long i = (long) y * width + x;
+        return (words[(int) (i >>> 6)] & (1L << i)) != 0;
+    }
+    public void set(int x, int y) {
+        long i = (long) y * width + x;
+        words[(int) (i >>> 6)] |= 1L << i;
     }
 }
 
 // === Rover ===
 class Rover {
-    private Position position;
+    private long position; // packed, see Position.pack
     private Direction direction;
     private final Terrain terrain;
 
     public Rover(Position start, Direction dir, Terrain terrain) {
-        this.position = start; this.direction = dir; this.terrain = terrain;
+        this(start.pack(), dir, terrain);
+    }
+    public Rover(long packedStart, Direction dir, Terrain terrain) {
+        this.position = packedStart; this.direction = dir; this.terrain = terrain;
     }
 
+    public Position getPosition() { return Position.unpack(position); }
+    public long getPackedPosition() { return position; }
+    public Direction getDirection() { return direction; }
+    Terrain getTerrain() { return terrain; }
+
     public void execute(Command command) { command.apply(this); }
+    void moveTo(long packed) { position = packed; }
+    void turnTo(Direction dir) { direction = dir; }
     public void turnLeft() { direction = direction.left(); }
     public void turnRight() { direction = direction.right(); }
+    public void rotate(int quarterTurns) { direction = direction.rotate(quarterTurns); }
     public void move() {
-        Position next = direction.move(position);
+        long next = direction.move(position);
         if (!terrain.isBlocked(next)) position = next;
     }
+    // Same as calling move() steps times: once a cell is blocked every further move is a no-op.
+    public void move(int steps) {
+        for (int i = 0; i < steps; i++) {
+            long next = direction.move(position);
+            if (terrain.isBlocked(next)) return;
+            position = next;
+        }
+    }
 
-    public String report() { return "Rover is at " + position + " facing " + direction; }
+    public String report() { return "Rover is at " + getPosition() + " facing " + direction; }
 }
 
 // === Command Pattern ===
@@ -85,24 +816,723 @@ interface Command { void apply(Rover rover); }
 class Move implements Command { public void apply(Rover r) { r.move(); } }
 class Left implements Command { public void apply(Rover r) { r.turnLeft(); } }
 class Right implements Command { public void apply(Rover r) { r.turnRight(); } }
+class MoveN implements Command {
+    private final int steps;
+    public MoveN(int steps) { this.steps = steps; }
+    public int getSteps() { return steps; }
+    public void apply(Rover r) { r.move(steps); }
+}
+class Rotate implements Command {
+    private final int quarterTurns; // clockwise, 1..3
+    public Rotate(int quarterTurns) { this.quarterTurns = quarterTurns & 3; }
+    public int getQuarterTurns() { return quarterTurns; }
+    public void apply(Rover r) { r.rotate(quarterTurns); }
+}
+class Program implements Command {
+    private final List<Command> ops;
+    public Program(List<Command> ops) { this.ops = List.copyOf(ops); }
+    public List<Command> getOps() { return ops; }
+    public void apply(Rover r) {
+        for (int i = 0; i < ops.size(); i++) ops.get(i).apply(r);
+    }
+}
+
+// === Repeated Programs ===
+// Runs a program many times by watching the rover's (position, direction) after each
+// pass. Passes are deterministic on static terrain, so as soon as a state repeats the
+// rest of the run is periodic and the final state is looked up instead of simulated.
+// Only valid for terrain that does not change during the run (not LockstepScheduler).
+// States are tracked for the first MAX_TRACKED passes; past that it simulates plainly.
+class CycleRunner {
+    static final int MAX_TRACKED = 1 << 20;
+
+    // Returns how many passes were actually simulated.
+    public static long repeat(Rover rover, Command program, long times) {
+        if (times <= 0) return 0;
+        StateIndex seen = new StateIndex();
+        long[] positions = new long[16];
+        byte[] directions = new byte[16];
+        positions[0] = rover.getPackedPosition();
+        directions[0] = (byte) rover.getDirection().ordinal();
+        seen.putIfAbsent(positions[0], directions[0], 0);
+        for (long pass = 1; pass <= times; pass++) {
+            program.apply(rover);
+            if (pass >= MAX_TRACKED) continue;
+            int p = (int) pass;
+            long pos = rover.getPackedPosition();
+            int dir = rover.getDirection().ordinal();
+            int first = seen.putIfAbsent(pos, dir, p);
+            if (first >= 0) {
+                int target = first + (int) ((times - pass) % (p - first));
+                rover.moveTo(positions[target]);
+                rover.rotate(directions[target] - dir);
+                return pass;
+            }
+            if (p == positions.length) {
+                positions = Arrays.copyOf(positions, p * 2);
+                directions = Arrays.copyOf(directions, p * 2);
+            }
+            positions[p] = pos;
+            directions[p] = (byte) dir;
+        }
+        return times;
+    }
+
+    // Open-addressing set of (packed position, direction) -> first pass it was seen.
+    private static final class StateIndex {
+        private long[] positions = new long[64];
+        private byte[] directions = new byte[64];
+        private int[] passes = new int[64]; // pass + 1, 0 marks an empty slot
+        private int size;
+
+        int putIfAbsent(long pos, int dir, int pass) {
+            int mask = passes.length - 1;
+            for (int i = slot(pos, dir) & mask; ; i = (i + 1) & mask) {
+                if (passes[i] == 0) {
+                    positions[i] = pos; directions[i] = (byte) dir; passes[i] = pass + 1;
+                    if (++size * 2 > passes.length) grow();
+                    return -1;
+                }
+                if (positions[i] == pos && directions[i] == dir) return passes[i] - 1;
+            }
+        }
+        private static int slot(long pos, int dir) {
+            long h = (pos * 4 + dir) * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+        private void grow() {
+            long[] oldPositions = positions; byte[] oldDirections = directions; int[] oldPasses = passes;
+            positions = new long[oldPasses.length * 2];
+            directions = new byte[oldPasses.length * 2];
+            passes = new int[oldPasses.length * 2];
+            int mask = passes.length - 1;
+            for (int j = 0; j < oldPasses.length; j++) {
+                if (oldPasses[j] == 0) continue;
+                int i = slot(oldPositions[j], oldDirections[j]) & mask;
+                while (passes[i] != 0) i = (i + 1) & mask;
+                positions[i] = oldPositions[j]; directions[i] = oldDirections[j]; passes[i] = oldPasses[j];
+            }
+        }
+    }
+}
+
+// === Program Transforms ===
+// On open ground a program is a rigid motion: measured from the origin facing NORTH
+// it ends at (dx, dy) after a net clockwise rotation of turns quarter turns, and
+// every cell it visits lies in [minX, maxX] x [minY, maxY]. For any other heading the
+// same motion applies rotated by that heading. Transforms compose, so a program run
+// k times is a product of powers of two taken from a doubling table. Coordinates are
+// exact longs; a product that overflows throws ArithmeticException.
+final class Transform {
+    static final Transform IDENTITY = new Transform(0, 0, 0, 0, 0, 0, 0);
+    final long dx, dy, minX, minY, maxX, maxY;
+    final int turns;
+
+    private Transform(long dx, long dy, int turns, long minX, long minY, long maxX, long maxY) {
+        this.dx = dx; this.dy = dy; this.turns = turns & 3;
+        this.minX = minX; this.minY = minY; this.maxX = maxX; this.maxY = maxY;
+    }
+
+    // Runs the program once on terrain that blocks nothing and records every cell it
+    // steps into, so any Command works, not just the built-in ones.
+    public static Transform of(Command program) {
+        long[] box = new long[4];
+        Terrain open = new Terrain() {
+            public boolean isBlocked(Position pos) { return isBlocked(pos.pack()); }
+            public boolean isBlocked(long packed) {
+                int x = Position.unpackX(packed), y = Position.unpackY(packed);
+                box[0] = Math.min(box[0], x); box[1] = Math.min(box[1], y);
+                box[2] = Math.max(box[2], x); box[3] = Math.max(box[3], y);
+                return false;
+            }
+        };
+        Rover probe = new Rover(0L, Direction.NORTH, open);
+        program.apply(probe);
+        Position end = probe.getPosition();
+        return new Transform(end.getX(), end.getY(), probe.getDirection().ordinal(), box[0], box[1], box[2], box[3]);
+    }
+
+    // This motion followed by next.
+    public Transform then(Transform next) {
+        long ndx = rotX(next.dx, next.dy, turns), ndy = rotY(next.dx, next.dy, turns);
+        long ax = rotX(next.minX, next.minY, turns), ay = rotY(next.minX, next.minY, turns);
+        long bx = rotX(next.maxX, next.maxY, turns), by = rotY(next.maxX, next.maxY, turns);
+        return new Transform(Math.addExact(dx, ndx), Math.addExact(dy, ndy), turns + next.turns,
+                Math.min(minX, Math.addExact(dx, Math.min(ax, bx))),
+                Math.min(minY, Math.addExact(dy, Math.min(ay, by))),
+                Math.max(maxX, Math.addExact(dx, Math.max(ax, bx))),
+                Math.max(maxY, Math.addExact(dy, Math.max(ay, by))));
+    }
+
+    // (x, y) rotated clockwise by quarter turns.
+    static long rotX(long x, long y, int quarterTurns) {
+        switch (quarterTurns & 3) {
+            case 0: return x;
+            case 1: return y;
+            case 2: return Math.negateExact(x);
+            default: return Math.negateExact(y);
+        }
+    }
+    static long rotY(long x, long y, int quarterTurns) {
+        switch (quarterTurns & 3) {
+            case 0: return y;
+            case 1: return Math.negateExact(x);
+            case 2: return Math.negateExact(y);
+            default: return x;
+        }
+    }
+}
+
+// A program with its doubling table: powers[i] is the program run 2^i times.
+// apply(rover, k) moves the rover in O(log k) when nothing in the swept bounding box
+// can be blocked, and otherwise falls back to CycleRunner, which executes passes.
+class RepeatedProgram {
+    private final Command program;
+    private final Transform[] powers = new Transform[63];
+    private int levels = 1;
+
+    public RepeatedProgram(Command program) {
+        this.program = program;
+        this.powers[0] = Transform.of(program);
+    }
+
+    public Transform power(long times) {
+        if (times < 0) throw new IllegalArgumentException("Negative repeat count: " + times);
+        Transform t = Transform.IDENTITY;
+        for (int i = 0; times != 0; i++, times >>>= 1) {
+            if (i == levels) { powers[i] = powers[i - 1].then(powers[i - 1]); levels++; }
+            if ((times & 1) != 0) t = t.then(powers[i]);
+        }
+        return t;
+    }
+
+    public void apply(Rover rover, long times) {
+        if (times <= 0) return;
+        long x = Position.unpackX(rover.getPackedPosition()), y = Position.unpackY(rover.getPackedPosition());
+        int heading = rover.getDirection().ordinal();
+        try {
+            Transform t = power(times);
+            long ax = Transform.rotX(t.minX, t.minY, heading), ay = Transform.rotY(t.minX, t.minY, heading);
+            long bx = Transform.rotX(t.maxX, t.maxY, heading), by = Transform.rotY(t.maxX, t.maxY, heading);
+            int minX = Math.toIntExact(Math.addExact(x, Math.min(ax, bx)));
+            int minY = Math.toIntExact(Math.addExact(y, Math.min(ay, by)));
+            int maxX = Math.toIntExact(Math.addExact(x, Math.max(ax, bx)));
+            int maxY = Math.toIntExact(Math.addExact(y, Math.max(ay, by)));
+            if (!rover.getTerrain().mayBlock(minX, minY, maxX, maxY)) {
+                rover.moveTo(Position.pack(Math.toIntExact(Math.addExact(x, Transform.rotX(t.dx, t.dy, heading))),
+                        Math.toIntExact(Math.addExact(y, Transform.rotY(t.dx, t.dy, heading)))));
+                rover.rotate(t.turns);
+                return;
+            }
+        } catch (ArithmeticException outOfRange) {
+            // the path leaves int coordinates; let plain execution decide
+        }
+        CycleRunner.repeat(rover, program, times);
+    }
+}
+
+// === Command Compiler ===
+// Fuses runs of M into MoveN and runs of L/R into a single net Rotate.
+class CommandCompiler {
+    public static Program compile(CharSequence input) {
+        List<Command> ops = new ArrayList<>();
+        int steps = 0, turns = 0;
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            switch (c) {
+                case 'M' -> {
+                    if ((turns & 3) != 0) { ops.add(new Rotate(turns)); turns = 0; }
+                    steps++;
+                }
+                case 'L', 'R' -> {
+                    if (steps > 0) { ops.add(new MoveN(steps)); steps = 0; }
+                    turns += c == 'L' ? 3 : 1;
+                }
+                default -> {
+                    if (!Character.isWhitespace(c)) throw new IllegalArgumentException("Unknown command: " + c);
+                }
+            }
+        }
+        if (steps > 0) ops.add(new MoveN(steps));
+        if ((turns & 3) != 0) ops.add(new Rotate(turns));
+        return new Program(ops);
+    }
+}
+
+// === Fleet ===
+// Rovers in a fleet do not see each other, so each plan can run on any thread
+// as long as the shared terrain is not modified while the fleet runs.
+class Fleet {
+    private final Terrain terrain;
+    private final List<Rover> rovers = new ArrayList<>();
+    private final List<Command> plans = new ArrayList<>();
+
+    public Fleet(Terrain terrain) { this.terrain = terrain; }
+
+    public Rover add(Position start, Direction dir, Command plan) {
+        Rover rover = new Rover(start, dir, terrain);
+        rovers.add(rover);
+        plans.add(plan);
+        return rover;
+    }
+    public int size() { return rovers.size(); }
+
+    public List<String> run() {
+        for (int i = 0; i < rovers.size(); i++) rovers.get(i).execute(plans.get(i));
+        return reports();
+    }
+    public List<String> runParallel() { return runParallel(ForkJoinPool.commonPool()); }
+    public List<String> runParallel(ForkJoinPool pool) {
+        pool.submit(() -> IntStream.range(0, rovers.size()).parallel()
+                .forEach(i -> rovers.get(i).execute(plans.get(i)))).join();
+        return reports();
+    }
+    private List<String> reports() {
+        List<String> out = new ArrayList<>(rovers.size());
+        for (Rover r : rovers) out.add(r.report());
+        return out;
+    }
+}
+
+// === Lock-step Scheduler ===
+// Every tick each rover applies its next single move or turn against the terrain plus
+// the cells held by the other rovers at the start of the tick; MoveN and Program
+// commands are spread over as many ticks as they have moves and turns, so a rover only
+// ever enters a cell next to its own and cannot pass through another rover. When
+// several rovers end the tick on the same cell the lowest index keeps it and the others
+// are put back where they started, so the outcome does not depend on how many threads
+// run the tick.
+class LockstepScheduler {
+    private final Terrain terrain;
+    private final List<Rover> rovers = new ArrayList<>();
+    private final List<int[]> plans = new ArrayList<>(); // see steps()
+    private final CellTable occupied = new CellTable(), claims = new CellTable();
+    private int[] op = new int[0], used = new int[0];
+    private long[] before = new long[0], after = new long[0];
+    private Direction[] heading = new Direction[0];
+    private int tick;
+
+    public LockstepScheduler(Terrain terrain) { this.terrain = terrain; }
+
+    // Plans are made of Move, Left, Right, MoveN, Rotate and Program commands.
+    public Rover add(Position start, Direction dir, List<Command> plan) {
+        long packed = start.pack();
+        if (terrain.isBlocked(packed) || occupied.get(packed) >= 0)
+            throw new IllegalArgumentException("Position not free: " + start);
+        int[] steps = steps(plan);
+        int index = rovers.size();
+        Rover rover = new Rover(packed, dir, new Terrain() {
+            public boolean isBlocked(Position pos) { return isBlocked(pos.pack()); }
+            public boolean isBlocked(long p) {
+                int holder = occupied.get(p);
+                return (holder >= 0 && holder != index) || terrain.isBlocked(p);
+            }
+        });
+        occupied.put(packed, index);
+        rovers.add(rover);
+        plans.add(steps);
+        return rover;
+    }
+    public int getTick() { return tick; }
+
+    public List<String> run() { return run(ForkJoinPool.commonPool()); }
+    public List<String> run(ForkJoinPool pool) {
+        while (tick(pool)) { }
+        List<String> out = new ArrayList<>(rovers.size());
+        for (Rover r : rovers) out.add(r.report());
+        return out;
+    }
+
+    // Returns false once every plan is exhausted.
+    public boolean tick(ForkJoinPool pool) {
+        int n = rovers.size();
+        if (op.length != n) {
+            op = Arrays.copyOf(op, n); used = Arrays.copyOf(used, n);
+            before = new long[n]; after = new long[n]; heading = new Direction[n];
+        }
+        boolean active = false;
+        for (int i = 0; i < n && !active; i++) active = op[i] < plans.get(i).length;
+        if (!active) return false;
+        pool.submit(() -> IntStream.range(0, n).parallel().forEach(this::propose)).join();
+        for (int i = 0; i < n; i++) if (after[i] != before[i]) claims.putIfAbsent(after[i], i);
+        pool.submit(() -> IntStream.range(0, n).parallel().forEach(this::resolve)).join();
+        claims.clear();
+        occupied.clear();
+        for (int i = 0; i < n; i++) occupied.put(rovers.get(i).getPackedPosition(), i);
+        tick++;
+        return true;
+    }
+    private void propose(int i) {
+        Rover rover = rovers.get(i);
+        int[] steps = plans.get(i);
+        before[i] = after[i] = rover.getPackedPosition();
+        heading[i] = rover.getDirection();
+        if (op[i] >= steps.length) return;
+        int step = steps[op[i]];
+        if (step > 0) {
+            rover.move();
+            after[i] = rover.getPackedPosition();
+            if (++used[i] < step) return;
+            used[i] = 0;
+        } else {
+            rover.rotate(-step);
+        }
+        op[i]++;
+    }
+    private void resolve(int i) {
+        if (after[i] == before[i] || claims.get(after[i]) == i) return;
+        Rover rover = rovers.get(i);
+        rover.moveTo(before[i]);
+        rover.turnTo(heading[i]);
+    }
+
+    // One entry per run of moves (its length, > 0) or per turn (minus its clockwise
+    // quarter turns, <= 0); a tick takes one move of a run, or one turn.
+    private static int[] steps(List<Command> plan) {
+        int[][] out = { new int[16] };
+        int size = 0;
+        for (Command c : plan) size = flatten(c, out, size);
+        return Arrays.copyOf(out[0], size);
+    }
+    private static int flatten(Command c, int[][] out, int size) {
+        int step;
+        if (c instanceof Program p) {
+            for (Command inner : p.getOps()) size = flatten(inner, out, size);
+            return size;
+        } else if (c instanceof Move) step = 1;
+        else if (c instanceof MoveN m) step = m.getSteps();
+        else if (c instanceof Left) step = -3;
+        else if (c instanceof Right) step = -1;
+        else if (c instanceof Rotate r) step = -r.getQuarterTurns();
+        else throw new IllegalArgumentException("Not a lock-step command: " + c.getClass().getSimpleName());
+        if (c instanceof MoveN && step <= 0) return size;
+        int[] steps = out[0];
+        if (step > 0 && size > 0 && steps[size - 1] > 0 && steps[size - 1] <= Integer.MAX_VALUE - step) {
+            steps[size - 1] += step;
+            return size;
+        }
+        if (size == steps.length) out[0] = steps = Arrays.copyOf(steps, size * 2);
+        steps[size] = step;
+        return size + 1;
+    }
+
+    // Cell -> rover index, open addressing; -1 is an empty slot, so every packed cell
+    // (including 0) is a valid key.
+    private static final class CellTable {
+        private long[] keys = new long[16];
+        private int[] owners = new int[16];
+        private int size;
+        CellTable() { Arrays.fill(owners, -1); }
+        int get(long cell) { return owners[find(cell)]; }
+        void put(long cell, int owner) {
+            int i = find(cell);
+            if (owners[i] < 0) {
+                if (++size * 2 > keys.length) { grow(); i = find(cell); }
+                keys[i] = cell;
+            }
+            owners[i] = owner;
+        }
+        void putIfAbsent(long cell, int owner) { if (get(cell) < 0) put(cell, owner); }
+        void clear() {
+            if (size == 0) return;
+            Arrays.fill(owners, -1);
+            size = 0;
+        }
+        private int find(long cell) {
+            int mask = keys.length - 1;
+            long h = cell * 0x9E3779B97F4A7C15L;
+            int i = (int) (h ^ (h >>> 32)) & mask;
+            while (owners[i] >= 0 && keys[i] != cell) i = (i + 1) & mask;
+            return i;
+        }
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldOwners = owners;
+            keys = new long[oldKeys.length * 2]; owners = new int[keys.length];
+            Arrays.fill(owners, -1);
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldOwners[j] < 0) continue;
+                int i = find(oldKeys[j]);
+                keys[i] = oldKeys[j]; owners[i] = oldOwners[j];
+            }
+        }
+    }
+}
+
+// === Path Planner ===
+// A* over (cell, heading) states where Move, Left and Right each cost one command.
+// The heuristic is Manhattan distance plus the fewest turns needed on open ground.
+// Moves jump straight through corridor cells (both sides blocked), where stopping
+// can never be part of a shorter plan; every other cell is a jump point.
+class PathPlanner {
+    private static final Direction[] DIRS = Direction.values();
+    private final Terrain terrain;
+    private final int width, height;
+
+    public PathPlanner(Terrain terrain, int width, int height) {
+        if ((long) width * height * 4 > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Grid too large to plan: " + width + "x" + height);
+        this.terrain = terrain; this.width = width; this.height = height;
+    }
+
+    // Returns the shortest command sequence, or empty if the goal cannot be reached.
+    public Optional<List<Command>> plan(Rover rover, Position goal) {
+        long start = rover.getPackedPosition(), target = goal.pack();
+        if (isBlocked(target) || !inBounds(start)) return Optional.empty();
+        long[] closed = new long[(int) (((long) width * height * 4 + 63) >>> 6)];
+        StateTable visited = new StateTable();
+        LongHeap open = new LongHeap();
+        int s0 = state(start, rover.getDirection().ordinal());
+        visited.put(s0, 0, -1);
+        open.push(0, heuristic(s0, target), s0);
+        while (!open.isEmpty()) {
+            int s = open.pop();
+            if ((closed[s >>> 6] & (1L << s)) != 0) continue;
+            closed[s >>> 6] |= 1L << s;
+            int g = visited.g(s);
+            long cell = cell(s);
+            if (cell == target) return Optional.of(commands(visited, s));
+            int d = s & 3;
+            relax(visited, open, closed, s, (s & ~3) | ((d + 3) & 3), g + 1, target);
+            relax(visited, open, closed, s, (s & ~3) | ((d + 1) & 3), g + 1, target);
+            Direction dir = DIRS[d];
+            int steps = 0;
+            for (long next = dir.move(cell); !isBlocked(next); next = dir.move(cell)) {
+                cell = next;
+                steps++;
+                if (cell == target || !isCorridor(cell, dir)) break;
+            }
+            if (steps > 0) relax(visited, open, closed, s, state(cell, d), g + steps, target);
+        }
+        return Optional.empty();
+    }
+
+    private void relax(StateTable visited, LongHeap open, long[] closed, int from, int to, int g, long target) {
+        if ((closed[to >>> 6] & (1L << to)) != 0) return;
+        int known = visited.g(to);
+        if (known >= 0 && known <= g) return;
+        visited.put(to, g, from);
+        open.push(g, heuristic(to, target), to);
+    }
+    private List<Command> commands(StateTable visited, int s) {
+        List<Command> out = new ArrayList<>();
+        for (int p = visited.parent(s); p >= 0; s = p, p = visited.parent(s)) {
+            if (cell(p) == cell(s)) {
+                out.add(((p + 1) & 3) == (s & 3) ? new Right() : new Left());
+            } else {
+                int steps = Math.abs(Position.unpackX(cell(s)) - Position.unpackX(cell(p)))
+                        + Math.abs(Position.unpackY(cell(s)) - Position.unpackY(cell(p)));
+                for (int i = 0; i < steps; i++) out.add(new Move());
+            }
+        }
+        Collections.reverse(out);
+        return out;
+    }
+    private int heuristic(int s, long target) {
+        int dx = Position.unpackX(target) - Position.unpackX(cell(s));
+        int dy = Position.unpackY(target) - Position.unpackY(cell(s));
+        int needX = Integer.signum(dx), needY = Integer.signum(dy);
+        Direction dir = DIRS[s & 3];
+        boolean along = (dir.getDx() != 0 && dir.getDx() == needX) || (dir.getDy() != 0 && dir.getDy() == needY);
+        boolean back = (dir.getDx() != 0 && dir.getDx() == -needX) || (dir.getDy() != 0 && dir.getDy() == -needY);
+        int turns;
+        if (needX == 0 && needY == 0) turns = 0;
+        else if (needX != 0 && needY != 0) turns = along ? 1 : 2;
+        else turns = along ? 0 : back ? 2 : 1;
+        return Math.abs(dx) + Math.abs(dy) + turns;
+    }
+    private boolean isCorridor(long cell, Direction dir) {
+        return isBlocked(dir.left().move(cell)) && isBlocked(dir.right().move(cell));
+    }
+    private boolean inBounds(long cell) {
+        int x = Position.unpackX(cell), y = Position.unpackY(cell);
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+    private boolean isBlocked(long cell) { return !inBounds(cell) || terrain.isBlocked(cell); }
+    private int state(long cell, int dir) {
+        return (Position.unpackY(cell) * width + Position.unpackX(cell)) << 2 | dir;
+    }
+    private long cell(int s) { return Position.pack((s >>> 2) % width, (s >>> 2) / width); }
+
+    // Binary min-heap of states keyed by f = g + h packed over h, so ties go to the deeper state.
+    private static class LongHeap {
+        private long[] keys = new long[256];
+        private int[] states = new int[256];
+        private int size;
+        boolean isEmpty() { return size == 0; }
+        void push(int g, int h, int state) {
+            if (size == keys.length) { keys = Arrays.copyOf(keys, size * 2); states = Arrays.copyOf(states, size * 2); }
+            long key = (long) (g + h) << 32 | h;
+            int i = size++;
+            while (i > 0 && keys[(i - 1) >>> 1] > key) {
+                keys[i] = keys[(i - 1) >>> 1]; states[i] = states[(i - 1) >>> 1];
+                i = (i - 1) >>> 1;
+            }
+            keys[i] = key; states[i] = state;
+        }
+        int pop() {
+            int top = states[0];
+            long last = keys[--size];
+            int lastState = states[size], i = 0;
+            for (int c = 1; c < size; c = 2 * i + 1) {
+                if (c + 1 < size && keys[c + 1] < keys[c]) c++;
+                if (keys[c] >= last) break;
+                keys[i] = keys[c]; states[i] = states[c];
+                i = c;
+            }
+            keys[i] = last; states[i] = lastState;
+            return top;
+        }
+    }
+
+    // Open-addressing map from state to best known cost and parent state.
+    private static class StateTable {
+        private int[] keys = new int[1024], g = new int[1024], parent = new int[1024];
+        private int size;
+        StateTable() { Arrays.fill(keys, -1); }
+        int g(int s) { int i = find(s); return keys[i] == s ? g[i] : -1; }
+        int parent(int s) { return parent[find(s)]; }
+        void put(int s, int cost, int from) {
+            int i = find(s);
+            if (keys[i] != s) {
+                if (++size * 2 > keys.length) { grow(); i = find(s); }
+                keys[i] = s;
+            }
+            g[i] = cost;
+            parent[i] = from;
+        }
+        private int find(int s) {
+            int mask = keys.length - 1, i = (s * 0x9E3779B9) >>> 1 & mask;
+            while (keys[i] != -1 && keys[i] != s) i = (i + 1) & mask;
+            return i;
+        }
+        private void grow() {
+            int[] oldKeys = keys, oldG = g, oldParent = parent;
+            keys = new int[oldKeys.length * 2]; g = new int[keys.length]; parent = new int[keys.length];
+            Arrays.fill(keys, -1);
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] == -1) continue;
+                int i = find(oldKeys[j]);
+                keys[i] = oldKeys[j]; g[i] = oldG[j]; parent[i] = oldParent[j];
+            }
+        }
+    }
+}
+
+// === Stress Harness ===
+// Run with "stress". Hammers a MutableTerrain from feeder and reader threads and
+// checks properties that only hold if every cell behaves as one atomic register:
+//  - toggles: feeders race add/remove on shared cells; per cell, successful adds minus
+//    successful removes must equal the final state (no lost or doubled updates even
+//    when neighbouring cells share a word);
+//  - ordering: a feeder blocks cells 0..n-1 in order while readers scan downwards; a
+//    reader that sees cell j blocked must then see every cell below j blocked. The
+//    same again with a full terrain that the feeder clears in order, for remove.
+// Each check prints a line; run() returns the total number of violations, and main
+// exits with status 1 if there were any.
+class TerrainStress {
+    public static long run() throws InterruptedException {
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        return toggles(threads, 64, 64, 200_000)
+                + ordering(threads - 1, 256, 256, 200, true)
+                + ordering(threads - 1, 256, 256, 200, false);
+    }
+
+    static long toggles(int threads, int width, int height, int opsPerThread) throws InterruptedException {
+        MutableTerrain terrain = new MutableTerrain(width, height);
+        int cells = width * height;
+        long[][] added = new long[threads][cells], removed = new long[threads][cells];
+        runAll(threads, t -> {
+            SplittableRandom rnd = new SplittableRandom(t);
+            for (int i = 0; i < opsPerThread; i++) {
+                int c = rnd.nextInt(cells), x = c % width, y = c / width;
+                if (rnd.nextBoolean()) { if (terrain.add(x, y)) added[t][c]++; }
+                else if (terrain.remove(x, y)) removed[t][c]++;
+                if (rnd.nextInt(8) == 0) terrain.isBlocked(x, y);
+            }
+        });
+        int violations = 0;
+        for (int c = 0; c < cells; c++) {
+            long balance = 0;
+            for (int t = 0; t < threads; t++) balance += added[t][c] - removed[t][c];
+            if (balance != (terrain.isBlocked(c % width, c / width) ? 1 : 0)) violations++;
+        }
+        System.out.printf("toggles:  %d threads x %d ops on %d cells, %d violations%n", threads, opsPerThread, cells, violations);
+        return violations;
+    }
+
+    // adding: the feeder blocks cells of an empty terrain; otherwise it clears a full one.
+    // Either way a reader that sees cell j changed must see every cell below j changed.
+    static long ordering(int readers, int width, int height, int rounds, boolean adding) throws InterruptedException {
+        int cells = width * height;
+        long violations = 0, observations = 0;
+        for (int r = 0; r < rounds; r++) {
+            MutableTerrain terrain = new MutableTerrain(width, height);
+            if (!adding) for (int c = 0; c < cells; c++) terrain.add(c % width, c / width);
+            long[] seen = new long[readers], bad = new long[readers];
+            boolean[] done = new boolean[1];
+            Thread feeder = new Thread(() -> {
+                for (int c = 0; c < cells; c++) {
+                    if (adding) terrain.add(c % width, c / width);
+                    else terrain.remove(c % width, c / width);
+                }
+                synchronized (done) { done[0] = true; }
+            });
+            feeder.start();
+            runAll(readers, t -> {
+                while (true) {
+                    boolean finished;
+                    synchronized (done) { finished = done[0]; }
+                    for (int j = cells - 1; j >= 0; j -= 97) {
+                        if (terrain.isBlocked(j % width, j / width) != adding) continue;
+                        seen[t]++;
+                        for (int k = j - 1; k >= 0; k -= 31) {
+                            if (terrain.isBlocked(k % width, k / width) != adding) { bad[t]++; break; }
+                        }
+                        break;
+                    }
+                    if (finished) return;
+                }
+            });
+            feeder.join();
+            for (int t = 0; t < readers; t++) { observations += seen[t]; violations += bad[t]; }
+        }
+        System.out.printf("ordering: %s, %d readers x %d rounds, %d observations, %d violations%n",
+                adding ? "add" : "remove", readers, rounds, observations, violations);
+        return violations;
+    }
+
+    private interface Body { void run(int thread); }
+    private static void runAll(int threads, Body body) throws InterruptedException {
+        CyclicBarrier start = new CyclicBarrier(threads);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException | BrokenBarrierException e) {
+                    return;
+                }
+                body.run(id);
+            });
+            workers[t].start();
+        }
+        for (Thread w : workers) w.join();
+    }
+}
 
 // === Client ===
 public class MarsRoverAlt {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length > 0 && args[0].equals("stress")) { System.exit(TerrainStress.run() == 0 ? 0 : 1); }
         Grid grid = new Grid(10, 10);
         grid.add(new Obstacle(new Position(2, 2)));
         grid.add(new Obstacle(new Position(3, 5)));
 
         Rover rover = new Rover(new Position(0, 0), Direction.NORTH, grid);
 
-        Map<Character, Command> commandMap = Map.of(
-                'M', new Move(),
-                'L', new Left(),
-                'R', new Right()
-        );
-
-        List<Character> input = List.of('M', 'M', 'R', 'M', 'L', 'M');
-        input.forEach(c -> rover.execute(commandMap.get(c)));
+        rover.execute(CommandCompiler.compile("MMRMLM"));
 
         System.out.println(rover.report());
     }
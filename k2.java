@@ -1,44 +1,102 @@
+import java.io.*;
+import java.lang.invoke.VarHandle;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 interface State {
     void update(RocketContext ctx);
     String name();
+    // Ticks until (and including) the first update that may change state, assuming
+    // every update before it is the same linear step; 0 if that cannot be predicted. It may
+    // return less, e.g. to stop a jump before the values stop being exact.
+    default int ticksUntilTransition(RocketContext ctx) { return 0; }
+    // Applies n of those linear steps at once; n is below ticksUntilTransition.
+    default void advance(RocketContext ctx, int n) {}
 }
 
 class PreLaunch implements State {
     public void update(RocketContext ctx) {}
     public String name() { return "Pre-Launch"; }
+    public int ticksUntilTransition(RocketContext ctx) { return Integer.MAX_VALUE; }
 }
 
 class Stage1 implements State {
+    static final int FUEL_LIMIT = 40;
+    static final double ALTITUDE_LIMIT = 120;
     public void update(RocketContext ctx) {
-        ctx.consumeFuel(2);
-        ctx.increaseAltitude(10);
-        ctx.increaseSpeed(1000);
-        if (ctx.getFuel() <= 40 || ctx.getAltitude() >= 120) {
+        LaunchProfile p = ctx.getProfile();
+        ctx.consumeFuel(p.getStage1Burn());
+        ctx.increaseAltitude(p.getStage1Climb());
+        ctx.increaseSpeed(p.getStage1Accel());
+        if (ctx.getFuel() <= FUEL_LIMIT || ctx.getAltitude() >= ALTITUDE_LIMIT) {
             ctx.setState(new Stage2());
             ctx.info("Stage 1 complete. Separating stage. Entering Stage 2.");
         }
     }
     public String name() { return "Stage 1"; }
+    public int ticksUntilTransition(RocketContext ctx) {
+        LaunchProfile p = ctx.getProfile();
+        int exact = ctx.exactTicks(p.getStage1Climb(), p.getStage1Accel());
+        if (exact == 0) return 0;
+        int transition = Math.min(RocketContext.ticksUntil(ctx.getFuel() - FUEL_LIMIT, p.getStage1Burn()),
+                RocketContext.ticksUntil((long) (ALTITUDE_LIMIT - ctx.getAltitude()), (long) p.getStage1Climb()));
+        return Math.min(transition, exact + 1);
+    }
+    public void advance(RocketContext ctx, int n) {
+        LaunchProfile p = ctx.getProfile();
+        ctx.consumeFuel(p.getStage1Burn() * n);
+        ctx.increaseAltitude(p.getStage1Climb() * n);
+        ctx.increaseSpeed(p.getStage1Accel() * n);
+    }
 }
 
 class Stage2 implements State {
+    static final int FUEL_LIMIT = 5;
+    static final double ORBIT_ALTITUDE = 400;
     public void update(RocketContext ctx) {
-        ctx.consumeFuel(1);
-        ctx.increaseAltitude(5);
-        ctx.increaseSpeed(400);
-        if (ctx.getFuel() <= 5) {
+        LaunchProfile p = ctx.getProfile();
+        ctx.consumeFuel(p.getStage2Burn());
+        ctx.increaseAltitude(p.getStage2Climb());
+        ctx.increaseSpeed(p.getStage2Accel());
+        if (ctx.getFuel() <= FUEL_LIMIT) {
             ctx.setState(new Failed());
             ctx.error("Mission Failed due to insufficient fuel.");
         }
-        if (ctx.getAltitude() >= 400) {
+        if (ctx.getAltitude() >= ORBIT_ALTITUDE) {
             ctx.setState(new Orbit());
             ctx.info("Orbit achieved! Mission Successful.");
         }
     }
     public String name() { return "Stage 2"; }
+    public int ticksUntilTransition(RocketContext ctx) {
+        LaunchProfile p = ctx.getProfile();
+        int exact = ctx.exactTicks(p.getStage2Climb(), p.getStage2Accel());
+        if (exact == 0) return 0;
+        int transition = Math.min(RocketContext.ticksUntil(ctx.getFuel() - FUEL_LIMIT, p.getStage2Burn()),
+                RocketContext.ticksUntil((long) (ORBIT_ALTITUDE - ctx.getAltitude()), (long) p.getStage2Climb()));
+        return Math.min(transition, exact + 1);
+    }
+    public void advance(RocketContext ctx, int n) {
+        LaunchProfile p = ctx.getProfile();
+        ctx.consumeFuel(p.getStage2Burn() * n);
+        ctx.increaseAltitude(p.getStage2Climb() * n);
+        ctx.increaseSpeed(p.getStage2Accel() * n);
+    }
 }
 
 class Orbit implements State {
@@ -51,26 +109,99 @@ class Failed implements State {
     public String name() { return "Failed"; }
 }
 
-class RocketContext {
+// === Launch Profile ===
+// Starting fuel plus the per-tick fuel burn, climb (km) and speed gain (km/h) of each stage.
+final class LaunchProfile {
+    static final LaunchProfile DEFAULT = new LaunchProfile(100, 2, 10, 1000, 1, 5, 400);
+    private final int fuel, stage1Burn, stage2Burn;
+    private final double stage1Climb, stage1Accel, stage2Climb, stage2Accel;
+
+    public LaunchProfile(int fuel, int stage1Burn, double stage1Climb, double stage1Accel,
+                         int stage2Burn, double stage2Climb, double stage2Accel) {
+        this.fuel = fuel;
+        this.stage1Burn = stage1Burn; this.stage1Climb = stage1Climb; this.stage1Accel = stage1Accel;
+        this.stage2Burn = stage2Burn; this.stage2Climb = stage2Climb; this.stage2Accel = stage2Accel;
+    }
+    public int getFuel() { return fuel; }
+    public int getStage1Burn() { return stage1Burn; }
+    public double getStage1Climb() { return stage1Climb; }
+    public double getStage1Accel() { return stage1Accel; }
+    public int getStage2Burn() { return stage2Burn; }
+    public double getStage2Climb() { return stage2Climb; }
+    public double getStage2Accel() { return stage2Accel; }
+}
+
+class RocketContext implements Rocket {
+    private final LaunchProfile profile;
     private State state = new PreLaunch();
-    private int fuel = 100;
+    private int fuel;
     private double altitude = 0;
     private double speed = 0;
     private int time = 0;
     private final List<RocketObserver> observers = new ArrayList<>();
 
+    public RocketContext() { this(LaunchProfile.DEFAULT); }
+    public RocketContext(LaunchProfile profile) {
+        this.profile = profile;
+        this.fuel = profile.getFuel();
+    }
+
+    public LaunchProfile getProfile() { return profile; }
     public void setState(State s) { state = s; }
     public void addObserver(RocketObserver o) { observers.add(o); }
     public void tick() {
+        step();
+        notifyUpdate();
+    }
+    private void step() {
         state.update(this);
         time++;
-        notifyUpdate();
     }
+    // Observers that only want a summary get one update at the end; with none wanting
+    // every tick, runs of predictable ticks are applied in one jump.
     public void fastForward(int sec) {
-        for (int i = 0; i < sec; i++) {
-            if (state instanceof Orbit || state instanceof Failed) break;
-            tick();
+        boolean everyTick = false;
+        for (RocketObserver o : observers) everyTick |= o.wantsEveryTick();
+        if (everyTick) {
+            for (int i = 0; i < sec; i++) {
+                if (isTerminal()) break;
+                tick();
+            }
+            return;
         }
+        int remaining = sec;
+        while (remaining > 0 && !isTerminal()) {
+            int skip = Math.min(remaining, state.ticksUntilTransition(this) - 1);
+            if (skip > 0) {
+                state.advance(this, skip);
+                time += skip;
+                remaining -= skip;
+            }
+            if (remaining > 0) {
+                step();
+                remaining--;
+            }
+        }
+        if (remaining < sec) notifyUpdate();
+    }
+    public boolean isTerminal() { return state instanceof Orbit || state instanceof Failed; }
+    // Jumps reproduce repeated addition only while values and rates stay whole and exactly
+    // representable, so this is how many ticks altitude and speed stay within 2^53 at the
+    // given rates; 0 if they are not whole to begin with.
+    int exactTicks(double climb, double accel) {
+        if (!isExact(altitude) || !isExact(speed) || !isExact(climb) || !isExact(accel)) return 0;
+        return (int) Math.min(Integer.MAX_VALUE - 1, Math.min(headroom(altitude, climb), headroom(speed, accel)));
+    }
+    private static boolean isExact(double v) { return v == Math.rint(v) && Math.abs(v) < 0x1p52; }
+    private static long headroom(double v, double rate) {
+        if (rate == 0) return Long.MAX_VALUE;
+        return ((1L << 53) - (long) Math.abs(v)) / (long) Math.abs(rate);
+    }
+    // Smallest t >= 1 with gap - rate * t <= 0, capped at Integer.MAX_VALUE.
+    static int ticksUntil(long gap, long rate) {
+        if (gap <= rate) return 1;
+        if (rate <= 0) return Integer.MAX_VALUE;
+        return (int) Math.min(Integer.MAX_VALUE, -Math.floorDiv(-gap, rate));
     }
     public void launch() {
         if (state instanceof PreLaunch) {
@@ -98,64 +229,1436 @@ class RocketContext {
     }
 }
 
+// === Batch Rocket Engine ===
+// N headless rockets sharing one LaunchProfile, stored as parallel primitive arrays,
+// each with the burn/climb/accel of its current stage copied in when the stage changes.
+// A tick is two passes: altitude and speed, then fuel and the stage guards.
+// tick() and fastForward() follow the RocketContext methods of the same name.
+class RocketBatch {
+    static final byte PRE_LAUNCH = 0, STAGE1 = 1, STAGE2 = 2, ORBIT = 3, FAILED = 4;
+    private static final String[] NAMES = { "Pre-Launch", "Stage 1", "Stage 2", "Orbit", "Failed" };
+    private final int size;
+    private final int[] fuel, time;
+    private final double[] altitude, speed;
+    private final byte[] stage;
+    private final int[] burn;                         // per stage code
+    private final double[] climb, accel;
+    private final int[] burnOf;                       // per rocket, for its current stage
+    private final double[] climbOf, accelOf;
+
+    public RocketBatch(int size, LaunchProfile profile) {
+        this.size = size;
+        fuel = new int[size]; time = new int[size];
+        altitude = new double[size]; speed = new double[size];
+        stage = new byte[size];
+        Arrays.fill(fuel, profile.getFuel());
+        burn = new int[] { 0, profile.getStage1Burn(), profile.getStage2Burn(), 0, 0 };
+        climb = new double[] { 0, profile.getStage1Climb(), profile.getStage2Climb(), 0, 0 };
+        accel = new double[] { 0, profile.getStage1Accel(), profile.getStage2Accel(), 0, 0 };
+        burnOf = new int[size]; climbOf = new double[size]; accelOf = new double[size];
+    }
+
+    public int size() { return size; }
+    public String getStage(int i) { return NAMES[stage[i]]; }
+    public int getFuel(int i) { return fuel[i]; }
+    public double getAltitude(int i) { return altitude[i]; }
+    public double getSpeed(int i) { return speed[i]; }
+    public int getTime(int i) { return time[i]; }
+
+    public void launch(int i) {
+        if (stage[i] != PRE_LAUNCH) return;
+        stage[i] = STAGE1;
+        burnOf[i] = burn[STAGE1]; climbOf[i] = climb[STAGE1]; accelOf[i] = accel[STAGE1];
+    }
+    public void launchAll() { for (int i = 0; i < size; i++) launch(i); }
+
+    public void tick() {
+        update();
+        for (int i = 0; i < size; i++) time[i]++;
+    }
+    // Rockets already in Orbit or Failed stop, as in RocketContext.fastForward.
+    public void fastForward(int sec) {
+        for (int t = 0; t < sec; t++) {
+            int live = 0;
+            for (int i = 0; i < size; i++) {
+                int running = stage[i] < ORBIT ? 1 : 0;
+                time[i] += running;
+                live += running;
+            }
+            if (live == 0) return;
+            update();
+        }
+    }
+    // Terminal stages have zero rates and no transitions, so updating them is a no-op.
+    private void update() {
+        int[] fuel = this.fuel, burnOf = this.burnOf;
+        double[] altitude = this.altitude, speed = this.speed, climbOf = this.climbOf, accelOf = this.accelOf;
+        for (int i = 0; i < size; i++) {
+            altitude[i] += climbOf[i];
+            speed[i] += accelOf[i];
+        }
+        for (int i = 0; i < size; i++) {
+            int s = stage[i];
+            int f = Math.max(0, fuel[i] - burnOf[i]);
+            double a = altitude[i];
+            fuel[i] = f;
+            int fromStage1 = f <= Stage1.FUEL_LIMIT | a >= Stage1.ALTITUDE_LIMIT ? STAGE2 : STAGE1;
+            int fromStage2 = a >= Stage2.ORBIT_ALTITUDE ? ORBIT : f <= Stage2.FUEL_LIMIT ? FAILED : STAGE2;
+            int next = s == STAGE1 ? fromStage1 : s == STAGE2 ? fromStage2 : s;
+            if (next == s) continue;
+            stage[i] = (byte) next;
+            burnOf[i] = burn[next]; climbOf[i] = climb[next]; accelOf[i] = accel[next];
+        }
+    }
+}
+
+// === Table-driven Stages ===
+// A vehicle is described line by line ('#' starts a comment):
+//   fuel <units>
+//   stage "<name>" [burn <n>] [climb <km>] [accel <km/h>] [initial] [terminal]
+//   launch "<from>" -> "<to>" [info|error "<message>"]
+//   when "<stage>" <fuel|altitude|speed|time> <<=|>=|<|>> <value> [or ...] -> "<target>" [info|error "<message>"]
+// Each tick applies the current stage's burn/climb/accel, then checks every guard of
+// that stage in order; each guard that holds switches to its target and emits its
+// message, so a later guard wins. FlightTable compiles this into flat arrays.
+final class FlightTable {
+    static final String DEFAULT_VEHICLE = String.join("\n",
+            "fuel 100",
+            "stage \"Pre-Launch\" initial",
+            "stage \"Stage 1\" burn 2 climb 10 accel 1000",
+            "stage \"Stage 2\" burn 1 climb 5 accel 400",
+            "stage \"Orbit\" terminal",
+            "stage \"Failed\" terminal",
+            "launch \"Pre-Launch\" -> \"Stage 1\" info \"Launch initiated.\"",
+            "when \"Stage 1\" fuel <= 40 or altitude >= 120 -> \"Stage 2\" info \"Stage 1 complete. Separating stage. Entering Stage 2.\"",
+            "when \"Stage 2\" fuel <= 5 -> \"Failed\" error \"Mission Failed due to insufficient fuel.\"",
+            "when \"Stage 2\" altitude >= 400 -> \"Orbit\" info \"Orbit achieved! Mission Successful.\"");
+    static final byte FUEL = 0, ALTITUDE = 1, SPEED = 2, TIME = 3;
+    static final byte LE = 0, GE = 1, LT = 2, GT = 3;
+    static final byte NONE = 0, INFO = 1, ERROR = 2;
+    private static final List<String> VARIABLES = List.of("fuel", "altitude", "speed", "time");
+    private static final List<String> OPERATORS = List.of("<=", ">=", "<", ">");
+
+    private final int fuel, initial, launchFrom, launchTo;
+    private final byte launchKind;
+    private final String launchMessage;
+    private final String[] names;
+    private final int[] burn;
+    private final double[] climb, accel;
+    private final boolean[] terminal;
+    private final int[] guardStart;           // guards of stage s are guardStart[s] .. guardStart[s + 1] - 1
+    private final int[] target, clauseStart;  // clauses of guard g are clauseStart[g] .. clauseStart[g + 1] - 1
+    private final byte[] kind;
+    private final String[] message;
+    private final byte[] variable, operator;
+    private final double[] threshold;
+
+    private FlightTable(Header header, List<String> names, List<double[]> rates, List<Boolean> terminal, List<Guard> flat) {
+        int n = names.size();
+        this.fuel = header.fuel; this.initial = header.initial;
+        this.launchFrom = header.from; this.launchTo = header.to;
+        this.launchKind = header.kind; this.launchMessage = header.message;
+        this.names = names.toArray(new String[0]);
+        this.burn = new int[n]; this.climb = new double[n]; this.accel = new double[n];
+        this.terminal = new boolean[n];
+        for (int s = 0; s < n; s++) {
+            burn[s] = (int) rates.get(s)[0]; climb[s] = rates.get(s)[1]; accel[s] = rates.get(s)[2];
+            this.terminal[s] = terminal.get(s);
+        }
+        this.guardStart = new int[n + 1];
+        for (int s = 0, g = 0; s <= n; s++) {
+            while (g < flat.size() && flat.get(g).stage < s) g++;
+            guardStart[s] = g;
+        }
+        int clauses = 0;
+        for (Guard g : flat) clauses += g.clauses.size();
+        this.target = new int[flat.size()]; this.kind = new byte[flat.size()]; this.message = new String[flat.size()];
+        this.clauseStart = new int[flat.size() + 1];
+        this.variable = new byte[clauses]; this.operator = new byte[clauses]; this.threshold = new double[clauses];
+        int c = 0;
+        for (int g = 0; g < flat.size(); g++) {
+            Guard guard = flat.get(g);
+            target[g] = guard.target; kind[g] = guard.kind; message[g] = guard.message;
+            clauseStart[g] = c;
+            for (double[] clause : guard.clauses) {
+                variable[c] = (byte) clause[0]; operator[c] = (byte) clause[1]; threshold[c] = clause[2];
+                c++;
+            }
+        }
+        clauseStart[flat.size()] = c;
+    }
+
+    public int getFuel() { return fuel; }
+    public int getInitial() { return initial; }
+    public int getLaunchFrom() { return launchFrom; }
+    public int getLaunchTo() { return launchTo; }
+    public byte getLaunchKind() { return launchKind; }
+    public String getLaunchMessage() { return launchMessage; }
+    public int getStageCount() { return names.length; }
+    public String getName(int stage) { return names[stage]; }
+    public int getBurn(int stage) { return burn[stage]; }
+    public double getClimb(int stage) { return climb[stage]; }
+    public double getAccel(int stage) { return accel[stage]; }
+    public boolean isTerminal(int stage) { return terminal[stage]; }
+    public int getGuardStart(int stage) { return guardStart[stage]; }
+    public int getGuardEnd(int stage) { return guardStart[stage + 1]; }
+    public int getTarget(int guard) { return target[guard]; }
+    public byte getKind(int guard) { return kind[guard]; }
+    public String getMessage(int guard) { return message[guard]; }
+
+    // Whether any clause of the guard holds for the given readings.
+    public boolean holds(int guard, int fuel, double altitude, double speed, int time) {
+        for (int c = clauseStart[guard]; c < clauseStart[guard + 1]; c++) {
+            double v = switch (variable[c]) {
+                case FUEL -> fuel;
+                case ALTITUDE -> altitude;
+                case SPEED -> speed;
+                default -> time;
+            };
+            double x = threshold[c];
+            boolean ok = switch (operator[c]) {
+                case LE -> v <= x;
+                case GE -> v >= x;
+                case LT -> v < x;
+                default -> v > x;
+            };
+            if (ok) return true;
+        }
+        return false;
+    }
+
+    public static FlightTable read(Path file) throws IOException {
+        return compile(Files.readString(file, StandardCharsets.UTF_8));
+    }
+
+    public static FlightTable compile(String source) {
+        Header t = new Header();
+        List<String> names = new ArrayList<>();
+        List<double[]> rates = new ArrayList<>();
+        List<Boolean> terminal = new ArrayList<>();
+        List<Guard> guards = new ArrayList<>();
+        int initial = -1, lineNo = 0;
+        for (String line : source.split("\n")) {
+            lineNo++;
+            List<String> tok = tokenize(line, lineNo);
+            if (tok.isEmpty()) continue;
+            try {
+                switch (tok.get(0)) {
+                    case "fuel" -> {
+                        t.fuel = Integer.parseInt(tok.get(1));
+                        expectEnd(tok, 2);
+                    }
+                    case "stage" -> {
+                        if (names.contains(tok.get(1))) throw new IllegalArgumentException("duplicate stage " + tok.get(1));
+                        double[] r = new double[3];
+                        boolean end = false;
+                        for (int i = 2; i < tok.size(); i++) {
+                            switch (tok.get(i)) {
+                                case "burn" -> r[0] = Integer.parseInt(tok.get(++i));
+                                case "climb" -> r[1] = Double.parseDouble(tok.get(++i));
+                                case "accel" -> r[2] = Double.parseDouble(tok.get(++i));
+                                case "initial" -> initial = names.size();
+                                case "terminal" -> end = true;
+                                default -> throw new IllegalArgumentException("unexpected " + tok.get(i));
+                            }
+                        }
+                        names.add(tok.get(1));
+                        rates.add(r);
+                        terminal.add(end);
+                    }
+                    case "launch" -> {
+                        t.from = stage(names, tok.get(1));
+                        expect(tok, 2, "->");
+                        t.to = stage(names, tok.get(3));
+                        if (tok.size() > 4) { t.kind = messageKind(tok.get(4)); t.message = tok.get(5); }
+                        expectEnd(tok, t.kind == NONE ? 4 : 6);
+                    }
+                    case "when" -> {
+                        Guard g = new Guard();
+                        int i = 2;
+                        while (true) {
+                            g.clauses.add(new double[] { index(VARIABLES, tok.get(i), "variable"),
+                                    index(OPERATORS, tok.get(i + 1), "operator"), Double.parseDouble(tok.get(i + 2)) });
+                            i += 3;
+                            if (!tok.get(i).equals("or")) break;
+                            i++;
+                        }
+                        expect(tok, i, "->");
+                        g.target = stage(names, tok.get(i + 1));
+                        if (tok.size() > i + 2) { g.kind = messageKind(tok.get(i + 2)); g.message = tok.get(i + 3); }
+                        expectEnd(tok, g.kind == NONE ? i + 2 : i + 4);
+                        g.stage = stage(names, tok.get(1));
+                        guards.add(g);
+                    }
+                    default -> throw new IllegalArgumentException("unknown directive " + tok.get(0));
+                }
+            } catch (IndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("line " + lineNo + ": incomplete " + tok.get(0));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("line " + lineNo + ": " + e.getMessage());
+            }
+        }
+        if (initial < 0) throw new IllegalArgumentException("no initial stage");
+        t.initial = initial;
+        guards.sort(Comparator.comparingInt(g -> g.stage)); // stable: keeps source order within a stage
+        return new FlightTable(t, names, rates, terminal, guards);
+    }
+
+    // Scalars collected while parsing.
+    private static class Header {
+        int fuel, initial, from = -1, to = -1;
+        byte kind = NONE;
+        String message;
+    }
+    private static class Guard {
+        final List<double[]> clauses = new ArrayList<>(); // variable, operator, threshold
+        int stage, target;
+        byte kind = NONE;
+        String message;
+    }
+
+    private static List<String> tokenize(String line, int lineNo) {
+        List<String> out = new ArrayList<>();
+        int i = 0, n = line.length();
+        while (i < n) {
+            char c = line.charAt(i);
+            if (c == '#') break;
+            if (Character.isWhitespace(c)) { i++; continue; }
+            int start = i;
+            if (c == '"') {
+                int end = line.indexOf('"', i + 1);
+                if (end < 0) throw new IllegalArgumentException("line " + lineNo + ": unterminated string");
+                out.add(line.substring(i + 1, end));
+                i = end + 1;
+            } else {
+                while (i < n && !Character.isWhitespace(line.charAt(i))) i++;
+                out.add(line.substring(start, i));
+            }
+        }
+        return out;
+    }
+    private static int stage(List<String> names, String name) {
+        int s = names.indexOf(name);
+        if (s < 0) throw new IllegalArgumentException("unknown stage " + name);
+        return s;
+    }
+    private static byte index(List<String> values, String token, String what) {
+        int i = values.indexOf(token);
+        if (i < 0) throw new IllegalArgumentException("unknown " + what + " " + token);
+        return (byte) i;
+    }
+    private static byte messageKind(String token) {
+        if (token.equals("info")) return INFO;
+        if (token.equals("error")) return ERROR;
+        throw new IllegalArgumentException("expected info or error, got " + token);
+    }
+    private static void expect(List<String> tok, int i, String expected) {
+        if (!tok.get(i).equals(expected)) throw new IllegalArgumentException("expected " + expected + ", got " + tok.get(i));
+    }
+    private static void expectEnd(List<String> tok, int i) {
+        if (tok.size() > i) throw new IllegalArgumentException("unexpected " + tok.get(i));
+    }
+}
+
+// Runs a compiled FlightTable: the stage is an index and a tick is array lookups plus
+// a guard loop, with no State objects or virtual calls.
+class TableRocket implements Rocket {
+    private final FlightTable table;
+    private int stage, fuel, time;
+    private double altitude, speed;
+    private final List<RocketObserver> observers = new ArrayList<>();
+
+    public TableRocket(FlightTable table) {
+        this.table = table;
+        this.stage = table.getInitial();
+        this.fuel = table.getFuel();
+    }
+
+    public void addObserver(RocketObserver o) { observers.add(o); }
+    public void tick() {
+        step();
+        notifyUpdate();
+    }
+    public void fastForward(int sec) {
+        boolean everyTick = false;
+        for (RocketObserver o : observers) everyTick |= o.wantsEveryTick();
+        int ticks = 0;
+        for (; ticks < sec && !table.isTerminal(stage); ticks++) {
+            step();
+            if (everyTick) notifyUpdate();
+        }
+        if (!everyTick && ticks > 0) notifyUpdate();
+    }
+    public boolean isTerminal() { return table.isTerminal(stage); }
+    public void launch() {
+        if (stage != table.getLaunchFrom()) return;
+        stage = table.getLaunchTo();
+        emit(table.getLaunchKind(), table.getLaunchMessage());
+    }
+    public void checks() { emit(FlightTable.INFO, "All systems are 'Go' for launch."); }
+
+    private void step() {
+        FlightTable t = table;
+        int s = stage;
+        fuel = Math.max(0, fuel - t.getBurn(s));
+        altitude += t.getClimb(s);
+        speed += t.getAccel(s);
+        for (int g = t.getGuardStart(s), end = t.getGuardEnd(s); g < end; g++) {
+            if (t.holds(g, fuel, altitude, speed, time)) {
+                stage = t.getTarget(g);
+                emit(t.getKind(g), t.getMessage(g));
+            }
+        }
+        time++;
+    }
+    private void emit(byte kind, String msg) {
+        if (kind == FlightTable.INFO) for (RocketObserver o : observers) o.info(msg);
+        else if (kind == FlightTable.ERROR) for (RocketObserver o : observers) o.error(msg);
+    }
+    private void notifyUpdate() {
+        for (RocketObserver o : observers) o.update(this);
+    }
+
+    public String getStage() { return table.getName(stage); }
+    public int getFuel() { return fuel; }
+    public double getAltitude() { return altitude; }
+    public double getSpeed() { return speed; }
+    public int getTime() { return time; }
+}
+
+// === Launch Campaign ===
+interface Distribution {
+    double sample(SplittableRandom rnd);
+    static Distribution constant(double value) { return rnd -> value; }
+    static Distribution uniform(double min, double max) { return rnd -> min + (max - min) * rnd.nextDouble(); }
+    static Distribution normal(double mean, double stddev) { return rnd -> mean + stddev * rnd.nextGaussian(); }
+}
+
+// Runs headless launches with sampled profiles in parallel batches. Each batch has its
+// own seeded generator and its own CampaignStats, so the merged totals do not depend on
+// scheduling and no per-run results are kept.
+class LaunchCampaign {
+    private static final int BATCH = 1 << 14;
+    private final Distribution fuel, stage1Burn, stage1Climb, stage1Accel, stage2Burn, stage2Climb, stage2Accel;
+
+    public LaunchCampaign(Distribution fuel, Distribution stage1Burn, Distribution stage1Climb, Distribution stage1Accel,
+                          Distribution stage2Burn, Distribution stage2Climb, Distribution stage2Accel) {
+        this.fuel = fuel;
+        this.stage1Burn = stage1Burn; this.stage1Climb = stage1Climb; this.stage1Accel = stage1Accel;
+        this.stage2Burn = stage2Burn; this.stage2Climb = stage2Climb; this.stage2Accel = stage2Accel;
+    }
+
+    // Reports the running totals to progress after every round of batches.
+    public CampaignStats run(long runs, long seed, int maxTicks, Consumer<CampaignStats> progress) {
+        CampaignStats total = new CampaignStats();
+        long batches = (runs + BATCH - 1) / BATCH;
+        int round = Math.max(1, ForkJoinPool.commonPool().getParallelism()) * 4;
+        for (long first = 0; first < batches; first += round) {
+            LongStream.range(first, Math.min(batches, first + round)).parallel()
+                    .mapToObj(b -> runBatch(b, Math.min(BATCH, runs - b * BATCH), seed, maxTicks))
+                    .reduce(CampaignStats::merge).ifPresent(total::merge);
+            progress.accept(total);
+        }
+        return total;
+    }
+    private CampaignStats runBatch(long batch, long runs, long seed, int maxTicks) {
+        SplittableRandom rnd = new SplittableRandom(seed ^ (batch * 0x9E3779B97F4A7C15L));
+        CampaignStats stats = new CampaignStats();
+        for (long i = 0; i < runs; i++) {
+            RocketContext ctx = new RocketContext(sample(rnd));
+            ctx.launch();
+            ctx.fastForward(maxTicks);
+            stats.record(ctx);
+        }
+        return stats;
+    }
+    LaunchProfile sample(SplittableRandom rnd) {
+        return new LaunchProfile(Math.max(0, (int) Math.round(fuel.sample(rnd))),
+                Math.max(0, (int) Math.round(stage1Burn.sample(rnd))), stage1Climb.sample(rnd), stage1Accel.sample(rnd),
+                Math.max(0, (int) Math.round(stage2Burn.sample(rnd))), stage2Climb.sample(rnd), stage2Accel.sample(rnd));
+    }
+}
+
+// Mergeable aggregate of campaign outcomes: counts plus fixed-size log-linear histograms
+// of time to orbit and fuel left at orbit, so a batch's memory does not grow with how long
+// its runs take. Values below 64 are counted exactly; above that each power of two is
+// split into 32 buckets, so quantiles are rounded down by less than 1/32.
+class CampaignStats {
+    private static final int EXACT_BITS = 6, SUB_BITS = 5, EXACT = 1 << EXACT_BITS;
+    private static final int BUCKETS = EXACT + ((31 - EXACT_BITS) << SUB_BITS);
+    private long runs, orbit, failed;
+    private final long[] timeToOrbit = new long[BUCKETS], fuelAtOrbit = new long[BUCKETS];
+
+    void record(RocketContext ctx) {
+        runs++;
+        String stage = ctx.getStage();
+        if (stage.equals("Failed")) failed++;
+        if (!stage.equals("Orbit")) return;
+        orbit++;
+        timeToOrbit[bucket(ctx.getTime())]++;
+        fuelAtOrbit[bucket(ctx.getFuel())]++;
+    }
+    CampaignStats merge(CampaignStats other) {
+        runs += other.runs; orbit += other.orbit; failed += other.failed;
+        for (int i = 0; i < BUCKETS; i++) {
+            timeToOrbit[i] += other.timeToOrbit[i];
+            fuelAtOrbit[i] += other.fuelAtOrbit[i];
+        }
+        return this;
+    }
+    static int bucket(int value) {
+        if (value < EXACT) return value;
+        int octave = 31 - Integer.numberOfLeadingZeros(value);
+        int sub = (value >>> (octave - SUB_BITS)) & ((1 << SUB_BITS) - 1);
+        return EXACT + ((octave - EXACT_BITS) << SUB_BITS) + sub;
+    }
+    // The smallest value that falls in the bucket.
+    static int lowerBound(int bucket) {
+        if (bucket < EXACT) return bucket;
+        int octave = EXACT_BITS + ((bucket - EXACT) >> SUB_BITS);
+        int sub = (bucket - EXACT) & ((1 << SUB_BITS) - 1);
+        return ((1 << SUB_BITS) + sub) << (octave - SUB_BITS);
+    }
+
+    public long getRuns() { return runs; }
+    public double getOrbitRatio() { return runs == 0 ? 0 : (double) orbit / runs; }
+    public double getFailureRatio() { return runs == 0 ? 0 : (double) failed / runs; }
+    public int timeToOrbitQuantile(double q) { return quantile(timeToOrbit, q); }
+    public int fuelAtOrbitQuantile(double q) { return quantile(fuelAtOrbit, q); }
+    private int quantile(long[] histogram, double q) {
+        if (orbit == 0) return -1;
+        long rank = (long) Math.ceil(q * orbit), seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= Math.max(1, rank)) return lowerBound(i);
+        }
+        return lowerBound(histogram.length - 1);
+    }
+    public String toString() {
+        return String.format("runs=%d orbit=%.4f failed=%.4f time-to-orbit p50=%d p90=%d fuel-at-orbit p10=%d p50=%d p90=%d",
+                runs, getOrbitRatio(), getFailureRatio(), timeToOrbitQuantile(0.5), timeToOrbitQuantile(0.9),
+                fuelAtOrbitQuantile(0.1), fuelAtOrbitQuantile(0.5), fuelAtOrbitQuantile(0.9));
+    }
+}
+
+interface Telemetry {
+    String getStage();
+    int getFuel();
+    double getAltitude();
+    double getSpeed();
+    int getTime();
+}
+
+// What commands drive: either the State-based RocketContext or a TableRocket.
+interface Rocket extends Telemetry {
+    void checks();
+    void launch();
+    void tick();
+    void fastForward(int sec);
+    // True once no tick can change the stage again (orbit or failure).
+    boolean isTerminal();
+    void addObserver(RocketObserver o);
+}
+
 interface RocketObserver {
-    void update(RocketContext ctx);
+    void update(Telemetry t);
+    // Return false to get a single update after each fast-forward instead of one per tick.
+    default boolean wantsEveryTick() { return true; }
     void info(String msg);
     void error(String msg);
 }
 
 class ConsoleObserver implements RocketObserver {
-    public void update(RocketContext ctx) {
-        System.out.printf("Stage: %s, Fuel: %d%%, Altitude: %.1f km, Speed: %.0f km/h%n",
-                ctx.getStage(), ctx.getFuel(), ctx.getAltitude(), ctx.getSpeed());
+    private final PrintStream out;
+    public ConsoleObserver() { this(System.out); }
+    public ConsoleObserver(PrintStream out) { this.out = out; }
+    public void update(Telemetry t) {
+        out.printf("Stage: %s, Fuel: %d%%, Altitude: %.1f km, Speed: %.0f km/h%n",
+                t.getStage(), t.getFuel(), t.getAltitude(), t.getSpeed());
+    }
+    public void info(String msg) { out.println(msg); }
+    public void error(String msg) { out.println(msg); }
+}
+
+// === Binary Telemetry Recorder ===
+// Segment file <name>-NNNNNN.tlm (little-endian): a 32-byte header of int magic 'RTLM',
+// int version, int record size, int capacity, int record count, then fixed 48-byte
+// records of int time, int fuel, double altitude, double speed and the stage name as
+// up to 24 Latin-1 bytes, zero padded. A segment is preallocated and mapped when
+// opened; once it holds capacity records the recorder rolls to the next one. Opening a
+// recorder deletes the segments of any earlier recording under the same name.
+class TelemetryRecorder implements RocketObserver, Closeable {
+    static final int MAGIC = 0x4D4C5452, VERSION = 1, HEADER_BYTES = 32, RECORD_BYTES = 48, STAGE_BYTES = 24;
+    static final int COUNT_OFFSET = 16;
+    // A segment is one mapped buffer, so it has to fit in Integer.MAX_VALUE bytes.
+    static final int MAX_RECORDS_PER_SEGMENT = (Integer.MAX_VALUE - HEADER_BYTES) / RECORD_BYTES;
+    private final Path dir;
+    private final String name;
+    private final int capacity;
+    private int segment = -1, count;
+    private MappedByteBuffer buffer;
+
+    public TelemetryRecorder(Path dir, String name, int recordsPerSegment) throws IOException {
+        if (recordsPerSegment <= 0) throw new IllegalArgumentException("recordsPerSegment must be positive");
+        if (recordsPerSegment > MAX_RECORDS_PER_SEGMENT)
+            throw new IllegalArgumentException("recordsPerSegment must be at most " + MAX_RECORDS_PER_SEGMENT + ": " + recordsPerSegment);
+        this.dir = dir; this.name = name; this.capacity = recordsPerSegment;
+        Files.createDirectories(dir);
+        for (int i = 0; Files.deleteIfExists(segmentPath(dir, name, i)); i++) { }
+        roll();
+    }
+
+    static Path segmentPath(Path dir, String name, int segment) {
+        return dir.resolve(String.format("%s-%06d.tlm", name, segment));
+    }
+
+    public void update(Telemetry t) {
+        if (count == capacity) {
+            try {
+                roll();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        int at = HEADER_BYTES + count * RECORD_BYTES;
+        buffer.putInt(at, t.getTime()).putInt(at + 4, t.getFuel())
+                .putDouble(at + 8, t.getAltitude()).putDouble(at + 16, t.getSpeed());
+        String stage = t.getStage();
+        for (int i = 0; i < STAGE_BYTES; i++) buffer.put(at + 24 + i, i < stage.length() ? (byte) stage.charAt(i) : 0);
+        buffer.putInt(COUNT_OFFSET, ++count);
+    }
+    public void info(String msg) { }
+    public void error(String msg) { }
+
+    private void roll() throws IOException {
+        segment++;
+        try (FileChannel ch = FileChannel.open(segmentPath(dir, name, segment), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = ch.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) capacity * RECORD_BYTES);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, RECORD_BYTES).putInt(12, capacity).putInt(COUNT_OFFSET, 0);
+        count = 0;
+    }
+    public void close() { buffer.force(); }
+}
+
+// Cursor over a recorded flight. seek() positions on the first record at or after a
+// tick; next() steps forward; the Telemetry getters read the current record. Reading
+// stops after the first segment that is not full, since only the last segment of a
+// recording can be partial.
+class TelemetryReader implements Telemetry {
+    private final List<ByteBuffer> segments = new ArrayList<>();
+    private final long[] starts; // index of each segment's first record, plus the total
+    private final long size;
+    private long index = -1;
+    private ByteBuffer current;
+    private int at;
+    private final byte[] stageBytes = new byte[TelemetryRecorder.STAGE_BYTES];
+    private String stage = "";
+
+    public TelemetryReader(Path dir, String name) throws IOException {
+        List<Long> offsets = new ArrayList<>();
+        long total = 0;
+        boolean full = true;
+        for (int i = 0; full && Files.exists(TelemetryRecorder.segmentPath(dir, name, i)); i++) {
+            try (FileChannel ch = FileChannel.open(TelemetryRecorder.segmentPath(dir, name, i), StandardOpenOption.READ)) {
+                ByteBuffer b = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()).order(ByteOrder.LITTLE_ENDIAN);
+                if (b.getInt(0) != TelemetryRecorder.MAGIC || b.getInt(8) != TelemetryRecorder.RECORD_BYTES)
+                    throw new IOException("Not a telemetry segment: " + TelemetryRecorder.segmentPath(dir, name, i));
+                int count = b.getInt(TelemetryRecorder.COUNT_OFFSET);
+                full = count == b.getInt(12);
+                offsets.add(total);
+                total += count;
+                segments.add(b);
+            }
+        }
+        offsets.add(total);
+        this.starts = offsets.stream().mapToLong(Long::longValue).toArray();
+        this.size = total;
+    }
+
+    public long size() { return size; }
+    public long position() { return index; }
+
+    public boolean next() { return moveTo(index + 1); }
+    // Times are non-decreasing, so this is a binary search over all segments.
+    public boolean seek(int tick) {
+        long lo = 0, hi = size;
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (timeAt(mid) < tick) lo = mid + 1; else hi = mid;
+        }
+        return moveTo(lo);
+    }
+    // Delivers the current record (the first one on a fresh reader) and everything after it.
+    public void replay(RocketObserver observer) {
+        if (index < 0) next();
+        for (; index < size; next()) observer.update(this);
+    }
+
+    private boolean moveTo(long i) {
+        if (i < 0 || i >= size) { index = size; return false; }
+        index = i;
+        int s = segmentOf(i);
+        current = segments.get(s);
+        at = offsetOf(i, s);
+        return true;
+    }
+    private int timeAt(long i) {
+        int s = segmentOf(i);
+        return segments.get(s).getInt(offsetOf(i, s));
+    }
+    private int segmentOf(long i) {
+        int s = Arrays.binarySearch(starts, i);
+        if (s < 0) return -s - 2;
+        while (starts[s + 1] == i) s++; // skip empty segments
+        return s;
+    }
+    private int offsetOf(long i, int segment) {
+        return TelemetryRecorder.HEADER_BYTES + (int) (i - starts[segment]) * TelemetryRecorder.RECORD_BYTES;
+    }
+
+    public int getTime() { return current.getInt(at); }
+    public int getFuel() { return current.getInt(at + 4); }
+    public double getAltitude() { return current.getDouble(at + 8); }
+    public double getSpeed() { return current.getDouble(at + 16); }
+    public String getStage() {
+        boolean same = true;
+        int len = 0;
+        for (int i = 0; i < stageBytes.length; i++) {
+            byte b = current.get(at + 24 + i);
+            if (b != 0) len = i + 1;
+            same &= stageBytes[i] == b;
+            stageBytes[i] = b;
+        }
+        if (!same) stage = new String(stageBytes, 0, len, StandardCharsets.ISO_8859_1);
+        return stage;
+    }
+}
+
+// === Telemetry Bus ===
+enum Backpressure {
+    BLOCK,       // the ticking thread waits for this subscriber when the ring is full
+    DROP_OLDEST, // a lagging subscriber skips ahead to the oldest entry still in the ring
+    SAMPLE       // a lagging subscriber skips straight to the newest entry
+}
+
+// Single-producer ring of preallocated telemetry slots. The ticking thread copies each
+// update/info/error into the next slot without allocating; every subscriber reads the
+// ring on its own daemon thread and calls its observer from there. Only BLOCK
+// subscribers can hold the producer back.
+class TelemetryBus implements RocketObserver, AutoCloseable {
+    private static final int UPDATE = 0, INFO = 1, ERROR = 2;
+    private final int capacity, mask;
+    private final AtomicLongArray versions; // sequence held by each slot, -1 while being written
+    private final int[] kind, fuel, time;
+    private final double[] altitude, speed;
+    private final String[] text; // stage name for updates, message otherwise
+    private volatile long cursor; // sequence of the next slot to write
+    // close() sets closed and then waits for publishing to clear, and publish() sets
+    // publishing before it checks closed. Both are volatile, so an entry is either
+    // discarded or in the ring before drained is set and subscribers may stop.
+    private volatile boolean closed, publishing, drained;
+    private volatile Subscriber[] subscribers = new Subscriber[0];
+
+    public TelemetryBus(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        this.capacity = capacity; this.mask = capacity - 1;
+        this.versions = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) versions.set(i, -1);
+        kind = new int[capacity]; fuel = new int[capacity]; time = new int[capacity];
+        altitude = new double[capacity]; speed = new double[capacity]; text = new String[capacity];
+    }
+
+    public synchronized void subscribe(RocketObserver observer, Backpressure policy) {
+        if (closed) throw new IllegalStateException("Bus is closed");
+        Subscriber s = new Subscriber(observer, policy, cursor);
+        Subscriber[] next = Arrays.copyOf(subscribers, subscribers.length + 1);
+        next[next.length - 1] = s;
+        subscribers = next;
+        s.thread.start();
+    }
+    public long getDropped() {
+        long total = 0;
+        for (Subscriber s : subscribers) total += s.dropped;
+        return total;
+    }
+
+    public void update(Telemetry t) { publish(UPDATE, t.getStage(), t.getFuel(), t.getAltitude(), t.getSpeed(), t.getTime()); }
+    public void info(String msg) { publish(INFO, msg, 0, 0, 0, 0); }
+    public void error(String msg) { publish(ERROR, msg, 0, 0, 0, 0); }
+
+    // Entries published after close() are discarded.
+    private void publish(int k, String s, int f, double a, double v, int t) {
+        publishing = true;
+        try {
+            if (!closed) write(k, s, f, a, v, t);
+        } finally {
+            publishing = false;
+        }
+    }
+    private void write(int k, String s, int f, double a, double v, int t) {
+        long seq = cursor;
+        for (Subscriber sub : subscribers) {
+            if (sub.policy != Backpressure.BLOCK) continue;
+            for (int spins = 0; seq - sub.next >= capacity && sub.thread.isAlive(); spins++) {
+                if (spins < 100) Thread.onSpinWait(); else LockSupport.parkNanos(10_000);
+            }
+        }
+        int i = (int) seq & mask;
+        versions.set(i, -1);
+        VarHandle.releaseFence();
+        kind[i] = k; text[i] = s; fuel[i] = f; altitude[i] = a; speed[i] = v; time[i] = t;
+        versions.setRelease(i, seq);
+        cursor = seq + 1;
+    }
+
+    // Stops accepting entries and waits for subscribers to drain what was published.
+    // If interrupted it stops waiting and leaves the interrupt status set.
+    public void close() {
+        closed = true;
+        for (int spins = 0; publishing; spins++) {
+            if (spins < 100) Thread.onSpinWait(); else LockSupport.parkNanos(10_000);
+        }
+        drained = true;
+        try {
+            for (Subscriber s : subscribers) s.thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private class Subscriber implements Runnable, Telemetry {
+        final RocketObserver observer;
+        final Backpressure policy;
+        final Thread thread;
+        volatile long next;
+        volatile long dropped;
+        private String stage;
+        private int f, t;
+        private double a, v;
+
+        Subscriber(RocketObserver observer, Backpressure policy, long start) {
+            this.observer = observer; this.policy = policy; this.next = start;
+            this.thread = new Thread(this, "telemetry-" + observer.getClass().getSimpleName());
+            thread.setDaemon(true);
+        }
+
+        public void run() {
+            long seq = next;
+            for (int idle = 0; ; ) {
+                long available = cursor;
+                if (seq >= available) {
+                    if (drained && seq >= cursor) return;
+                    if (idle++ < 100) Thread.onSpinWait(); else LockSupport.parkNanos(50_000);
+                    continue;
+                }
+                idle = 0;
+                long behind = available - seq;
+                if (policy == Backpressure.SAMPLE && behind > 1) {
+                    dropped += behind - 1;
+                    seq = available - 1;
+                } else if (policy == Backpressure.DROP_OLDEST && behind > capacity) {
+                    dropped += behind - capacity;
+                    seq = available - capacity;
+                }
+                int i = (int) seq & mask;
+                if (versions.getAcquire(i) != seq) continue; // overwritten, skip ahead
+                int k = kind[i];
+                String s = text[i];
+                f = fuel[i]; a = altitude[i]; v = speed[i]; t = time[i];
+                VarHandle.acquireFence();
+                if (versions.getAcquire(i) != seq) continue; // torn read, skip ahead
+                stage = s;
+                try {
+                    if (k == UPDATE) observer.update(this);
+                    else if (k == INFO) observer.info(s);
+                    else observer.error(s);
+                } catch (RuntimeException e) {
+                    System.err.println("Telemetry subscriber failed: " + e.getMessage());
+                }
+                next = ++seq;
+            }
+        }
+        public String getStage() { return stage; }
+        public int getFuel() { return f; }
+        public double getAltitude() { return a; }
+        public double getSpeed() { return v; }
+        public int getTime() { return t; }
     }
-    public void info(String msg) { System.out.println(msg); }
-    public void error(String msg) { System.out.println(msg); }
 }
 
 interface Command {
-    void execute(String[] args, RocketContext ctx);
+    void execute(String[] args, Rocket ctx);
+}
+
+// Commands that read their arguments as offsets into the input line. The String[]
+// form stays available as an adapter for callers that still use it.
+interface TokenCommand extends Command {
+    void execute(CommandArgs args, Rocket ctx);
+    default void execute(String[] args, Rocket ctx) { execute(CommandArgs.of(args), ctx); }
 }
 
-class StartChecks implements Command {
-    public void execute(String[] args, RocketContext ctx) { ctx.checks(); }
+class StartChecks implements TokenCommand {
+    public void execute(CommandArgs args, Rocket ctx) { ctx.checks(); }
 }
 
-class Launch implements Command {
-    public void execute(String[] args, RocketContext ctx) { ctx.launch(); }
+class Launch implements TokenCommand {
+    public void execute(CommandArgs args, Rocket ctx) { ctx.launch(); }
 }
 
-class FastForward implements Command {
-    public void execute(String[] args, RocketContext ctx) {
-        if (args.length < 2) throw new IllegalArgumentException("fast_forward <seconds>");
-        ctx.fastForward(Integer.parseInt(args[1]));
+class FastForward implements TokenCommand {
+    public void execute(CommandArgs args, Rocket ctx) {
+        if (args.count() < 2) throw new IllegalArgumentException("fast_forward <seconds>");
+        ctx.fastForward(args.parseInt(1));
     }
 }
 
-class Tick implements Command {
-    public void execute(String[] args, RocketContext ctx) { ctx.tick(); }
+class Tick implements TokenCommand {
+    public void execute(CommandArgs args, Rocket ctx) { ctx.tick(); }
 }
 
-class Exit implements Command {
-    public void execute(String[] args, RocketContext ctx) { System.exit(0); }
+class Exit implements TokenCommand {
+    public void execute(CommandArgs args, Rocket ctx) { System.exit(0); }
 }
 
+// Whitespace-separated tokens of one input line, kept as start/end offsets so that
+// splitting a line allocates nothing once the offset arrays are large enough.
+class CommandArgs {
+    private CharSequence line = "";
+    private int[] start = new int[4], end = new int[4];
+    private int count;
+
+    static CommandArgs of(String[] parts) {
+        CommandArgs args = new CommandArgs();
+        args.reset(String.join(" ", parts));
+        return args;
+    }
+
+    void reset(CharSequence input) {
+        line = input;
+        count = 0;
+        int n = input.length();
+        for (int i = 0; i < n; ) {
+            while (i < n && input.charAt(i) <= ' ') i++;
+            if (i == n) break;
+            if (count == start.length) {
+                start = Arrays.copyOf(start, count * 2);
+                end = Arrays.copyOf(end, count * 2);
+            }
+            start[count] = i;
+            while (i < n && input.charAt(i) > ' ') i++;
+            end[count++] = i;
+        }
+    }
+
+    public int count() { return count; }
+    public int length(int i) { return end[i] - start[i]; }
+    public char charAt(int i, int j) { return line.charAt(start[i] + j); }
+    public int parseInt(int i) {
+        try {
+            return Integer.parseInt(line, start[i], end[i], 10);
+        } catch (NumberFormatException e) {
+            throw new NumberFormatException("For input string: \"" + get(i) + "\"");
+        }
+    }
+    public String get(int i) { return line.subSequence(start[i], end[i]).toString(); }
+    public String[] toArray() {
+        String[] parts = new String[count];
+        for (int i = 0; i < count; i++) parts[i] = get(i);
+        return parts;
+    }
+}
+
+// Character trie of command names in parallel arrays (first child / next sibling),
+// so looking up a token compares chars in place instead of hashing a String.
+class CommandTable {
+    private char[] label = new char[32];
+    private int[] child = new int[32], sibling = new int[32];
+    private Command[] value = new Command[32];
+    private int nodes = 1; // node 0 is the root
+
+    public void put(String key, Command cmd) {
+        int node = 0;
+        for (int i = 0; i < key.length(); i++) {
+            int next = find(node, key.charAt(i));
+            if (next < 0) {
+                if (nodes == label.length) grow();
+                next = nodes++;
+                label[next] = key.charAt(i);
+                child[next] = 0;
+                sibling[next] = child[node];
+                child[node] = next;
+            }
+            node = next;
+        }
+        value[node] = cmd;
+    }
+    public Command get(CommandArgs args, int token) {
+        int node = 0;
+        for (int j = 0, n = args.length(token); j < n && node >= 0; j++) node = find(node, args.charAt(token, j));
+        return node < 0 ? null : value[node];
+    }
+    private int find(int node, char c) {
+        for (int n = child[node]; n != 0; n = sibling[n]) if (label[n] == c) return n;
+        return -1;
+    }
+    private void grow() {
+        label = Arrays.copyOf(label, nodes * 2);
+        child = Arrays.copyOf(child, nodes * 2);
+        sibling = Arrays.copyOf(sibling, nodes * 2);
+        value = Arrays.copyOf(value, nodes * 2);
+    }
+}
+
+// Reuses one CommandArgs for every line, so a router must only be used by one thread.
 class CommandRouter {
-    private final Map<String, Command> cmds = new HashMap<>();
+    private final CommandTable cmds = new CommandTable();
+    private final CommandArgs args = new CommandArgs();
     public void register(String key, Command cmd) { cmds.put(key, cmd); }
-    public void handle(String input, RocketContext ctx) {
-        String[] parts = input.trim().split("\\s+");
-        if (parts.length == 0) return;
-        Command c = cmds.get(parts[0]);
-        if (c == null) throw new IllegalArgumentException("Unknown command: " + parts[0]);
-        c.execute(parts, ctx);
+    public void handle(CharSequence input, Rocket ctx) {
+        args.reset(input);
+        if (args.count() == 0) return;
+        Command c = cmds.get(args, 0);
+        if (c == null) throw new IllegalArgumentException("Unknown command: " + args.get(0));
+        if (c instanceof TokenCommand t) t.execute(args, ctx);
+        else c.execute(args.toArray(), ctx);
+    }
+}
+
+// === Rocket Actor ===
+// Single owner thread for a Rocket. Ticks and command lines from any thread are
+// queued on a lock-free ConcurrentLinkedQueue and run one at a time by the owner, so the
+// context itself needs no synchronization. The owner parks when the mailbox is empty
+// and senders only unpark it when it is actually parked. A tick is folded into the tick
+// batch at the tail of the mailbox if the owner has not started it yet, so a fast clock
+// cannot flood the mailbox, yet ticks never overtake a message queued before them.
+// The open tick batch is held in an AtomicReference: a tick installs a new batch with a
+// CAS before enqueueing it, and a message clears the reference after enqueueing itself,
+// so later ticks start a batch behind it. Nothing on either path takes a lock.
+class RocketActor implements AutoCloseable {
+    private final Rocket rocket;
+    private final CommandRouter router;
+    private final Consumer<String> errors;
+    private final Queue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean parked = new AtomicBoolean();
+    private final AtomicReference<TickBatch> tail = new AtomicReference<>(); // batch later ticks may join
+    private final Thread owner;
+    private volatile boolean closed;
+
+    // count is -1 once the owner has taken the batch, after which it cannot grow.
+    private final class TickBatch implements Runnable {
+        private final AtomicInteger count = new AtomicInteger(1);
+        boolean add() {
+            for (int c; (c = count.get()) >= 0; ) if (count.compareAndSet(c, c + 1)) return true;
+            return false;
+        }
+        public void run() {
+            for (int n = count.getAndSet(-1); n > 0; n--) rocket.tick();
+        }
+    }
+
+    public RocketActor(Rocket rocket, CommandRouter router) { this(rocket, router, System.out::println); }
+    // errors receives the message of each failed command, on the owner thread.
+    public RocketActor(Rocket rocket, CommandRouter router, Consumer<String> errors) {
+        this.rocket = rocket; this.router = router; this.errors = errors;
+        this.owner = new Thread(this::drain, "rocket-actor");
+        owner.start();
+    }
+
+    public void tick() {
+        while (true) {
+            TickBatch t = tail.get();
+            if (t != null && t.add()) return;
+            TickBatch next = new TickBatch();
+            if (tail.compareAndSet(t, next)) {
+                mailbox.offer(next);
+                wake();
+                return;
+            }
+        }
+    }
+    public void command(String line) { tell(() -> router.handle(line, rocket)); }
+    // A batch that is still the tail after the offer may sit ahead of the message, so it
+    // is closed to later ticks. If the CAS fails, the tail was replaced after the offer
+    // and is already queued behind the message.
+    public void tell(Runnable message) {
+        mailbox.offer(message);
+        TickBatch t = tail.get();
+        if (t != null) tail.compareAndSet(t, null);
+        wake();
+    }
+    private void wake() {
+        if (parked.get() && parked.compareAndSet(true, false)) LockSupport.unpark(owner);
+    }
+
+    private void drain() {
+        while (true) {
+            Runnable message = mailbox.poll();
+            if (message != null) {
+                try {
+                    message.run();
+                } catch (Exception e) {
+                    errors.accept("Error: " + e.getMessage());
+                }
+                continue;
+            }
+            if (closed) return;
+            parked.set(true);
+            if (mailbox.isEmpty() && !closed) LockSupport.park(this);
+            parked.set(false);
+        }
+    }
+
+    // Runs everything already queued, then stops the owner thread. If interrupted it
+    // stops waiting and leaves the interrupt status set.
+    public void close() {
+        closed = true;
+        LockSupport.unpark(owner);
+        try {
+            owner.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
+
+// === Simulation Clock ===
+// Calls a tick target at a fixed rate on its own thread. Deadlines are absolute
+// (start + n * period), so a late tick is made up by running the next ones early
+// instead of letting the delay accumulate. A zero period means as fast as possible;
+// a stepped clock has no thread and only ticks through step().
+class SimulationClock implements AutoCloseable {
+    private static final long STEPPED = -1;
+    private final long periodNanos;
+    private final Runnable tick;
+    private final Thread thread;
+    private volatile boolean running;
+    private volatile long ticks, startNanos, stopNanos, lagNanos, maxLagNanos;
+
+    private SimulationClock(long periodNanos, Runnable tick) {
+        this.periodNanos = periodNanos; this.tick = tick;
+        this.thread = periodNanos == STEPPED ? null : new Thread(this::run, "simulation-clock");
+        if (thread != null) thread.setDaemon(true);
+    }
+    public static SimulationClock realTime(Runnable tick) { return accelerated(1, tick); }
+    public static SimulationClock accelerated(double factor, Runnable tick) {
+        if (!(factor > 0)) throw new IllegalArgumentException("Acceleration must be positive: " + factor);
+        return new SimulationClock(Math.max(1, Math.round(1e9 / factor)), tick);
+    }
+    public static SimulationClock asFastAsPossible(Runnable tick) { return new SimulationClock(0, tick); }
+    public static SimulationClock stepped(Runnable tick) { return new SimulationClock(STEPPED, tick); }
+    // "realtime", "<N>x" (e.g. "3600x"), "max" or "step".
+    public static SimulationClock parse(String mode, Runnable tick) {
+        if (mode.equals("realtime")) return realTime(tick);
+        if (mode.equals("max")) return asFastAsPossible(tick);
+        if (mode.equals("step")) return stepped(tick);
+        if (mode.endsWith("x")) {
+            try {
+                return accelerated(Double.parseDouble(mode.substring(0, mode.length() - 1)), tick);
+            } catch (NumberFormatException ignored) { }
+        }
+        throw new IllegalArgumentException("Unknown clock mode: " + mode);
+    }
+
+    public void start() {
+        startNanos = System.nanoTime();
+        running = true;
+        if (thread != null) thread.start();
+    }
+    public void step(int n) {
+        if (thread != null) throw new IllegalStateException("Clock is free-running");
+        if (n < 0) throw new IllegalArgumentException("Negative step count: " + n);
+        for (int i = 0; i < n; i++) tick.run();
+        ticks += n;
+    }
+    public void close() {
+        stopNanos = System.nanoTime();
+        running = false;
+    }
+
+    private void run() {
+        long start = startNanos, n = 0;
+        while (running) {
+            long deadline = start + (n + 1) * periodNanos, now;
+            while ((now = System.nanoTime()) < deadline && running) LockSupport.parkNanos(deadline - now);
+            if (!running) return;
+            if (periodNanos > 0) {
+                lagNanos = now - deadline;
+                if (lagNanos > maxLagNanos) maxLagNanos = lagNanos;
+            }
+            tick.run();
+            ticks = ++n;
+        }
+    }
+
+    public long getTicks() { return ticks; }
+    public double getTargetRate() {
+        return periodNanos > 0 ? 1e9 / periodNanos : periodNanos == 0 ? Double.POSITIVE_INFINITY : 0;
+    }
+    // NaN for a stepped clock: its ticks follow step() calls, not time.
+    public double getAchievedRate() {
+        if (periodNanos == STEPPED) return Double.NaN;
+        long elapsed = elapsedNanos();
+        return elapsed > 0 ? ticks * 1e9 / elapsed : 0;
+    }
+    // How late the most recent tick fired against its deadline, in nanoseconds.
+    public long getDriftNanos() { return lagNanos; }
+    private long elapsedNanos() {
+        if (startNanos == 0) return 0;
+        return (running ? System.nanoTime() : stopNanos) - startNanos;
+    }
+    public String report() {
+        if (periodNanos == STEPPED) return String.format("Clock: %d ticks, stepped (no target or achieved rate)", ticks);
+        return String.format("Clock: %d ticks, target %.2f/s, achieved %.2f/s, drift %.3f ms, max lag %.3f ms",
+                ticks, getTargetRate(), getAchievedRate(), getDriftNanos() / 1e6, maxLagNanos / 1e6);
+    }
+}
+
+// === Batch Script Runner ===
+// Runs command scripts headless: every script gets its own rocket and router, and time only
+// moves on tick/fast_forward so results are deterministic. Each script's output is streamed
+// as it runs to <script>.out, or to <out>/<script path>.out so scripts with the same name
+// in different directories do not collide ("-" reads stdin and writes stdout). Scripts are
+// independent and run in parallel. Blank lines and lines starting with '#' are skipped;
+// exit ends the script. An error is written to the output as "Error: <msg>" and the script
+// carries on, as in interactive mode. A script may run at most maxTicks ticks while its
+// rocket is in flight; a command that runs out of them stops there, and unless the
+// rocket has reached orbit or failed by then it is an error and ends the script.
+class BatchRunner {
+    static final class Result {
+        final String script;
+        final int commands, errors;
+        final String stage;
+        Result(String script, int commands, int errors, String stage) {
+            this.script = script; this.commands = commands; this.errors = errors; this.stage = stage;
+        }
+        public String toString() {
+            return String.format("%s: %d commands, %d errors, final stage %s", script, commands, errors, stage);
+        }
+    }
+
+    private final Path outDir;
+    private final ForkJoinPool pool;
+    private final Supplier<Rocket> vehicle;
+    private final long maxTicks;
+
+    // outDir null writes each result next to its script; vehicle makes a fresh rocket per script.
+    BatchRunner(Path outDir, ForkJoinPool pool, Supplier<Rocket> vehicle, long maxTicks) {
+        this.outDir = outDir; this.pool = pool; this.vehicle = vehicle; this.maxTicks = maxTicks;
+    }
+
+    // --batch [--out DIR] [--jobs N] [--max-ticks N] [--vehicle FILE] script...   Returns the
+    // exit status: 1 if any script had errors (they are listed on stderr), 2 for bad arguments.
+    static int runCli(String[] args) {
+        Path out = null;
+        Supplier<Rocket> vehicle = RocketContext::new;
+        int jobs = Runtime.getRuntime().availableProcessors();
+        long maxTicks = 1_000_000;
+        List<String> scripts = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--out") && i + 1 < args.length) out = Paths.get(args[++i]);
+            else if (args[i].equals("--jobs") && i + 1 < args.length) {
+                String value = args[++i];
+                try {
+                    jobs = Integer.parseInt(value);
+                } catch (NumberFormatException e) {
+                    jobs = 0;
+                }
+                if (jobs < 1) {
+                    System.err.println("--jobs needs a positive number: " + value);
+                    return 2;
+                }
+            } else if (args[i].equals("--max-ticks") && i + 1 < args.length) {
+                String value = args[++i];
+                try {
+                    maxTicks = Long.parseLong(value);
+                } catch (NumberFormatException e) {
+                    maxTicks = -1;
+                }
+                if (maxTicks < 0) {
+                    System.err.println("--max-ticks needs a non-negative number: " + value);
+                    return 2;
+                }
+            } else if (args[i].equals("--vehicle") && i + 1 < args.length) {
+                vehicle = RocketSimulator.vehicle(args[++i]);
+                if (vehicle == null) return 2;
+            } else scripts.add(args[i]);
+        }
+        if (scripts.isEmpty()) scripts.add("-");
+        ForkJoinPool pool = new ForkJoinPool(jobs);
+        try {
+            BatchRunner runner = new BatchRunner(out, pool, vehicle, maxTicks);
+            String clash = runner.findClash(scripts);
+            if (clash != null) {
+                System.err.println(clash);
+                return 2;
+            }
+            List<Result> results = runner.runAll(scripts);
+            int failed = 0;
+            for (Result r : results) {
+                if (r.errors == 0) continue;
+                System.err.println(r);
+                failed++;
+            }
+            System.err.printf("%d scripts, %d with errors%n", results.size(), failed);
+            return failed == 0 ? 0 : 1;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Where a script's output goes. Under outDir the script's normalised relative path is
+    // kept; absolute paths, and paths leading out of the working directory, keep
+    // everything below the file system root.
+    Path outputPath(String script) {
+        Path src = Paths.get(script).normalize();
+        if (outDir == null) return src.resolveSibling(src.getFileName() + ".out");
+        if (src.isAbsolute() || src.startsWith("..")) {
+            src = src.toAbsolutePath();
+            src = src.getRoot().relativize(src);
+        }
+        return outDir.resolve(src + ".out");
+    }
+
+    // A message naming two scripts that would write the same output, or null.
+    String findClash(List<String> scripts) {
+        Map<Path, String> owners = new HashMap<>();
+        for (String script : scripts) {
+            Path target = script.equals("-") ? Paths.get("-") : outputPath(script).toAbsolutePath().normalize();
+            String other = owners.putIfAbsent(target, script);
+            if (other != null) return "Scripts " + other + " and " + script + " would both write " + (script.equals("-") ? "stdout" : target);
+        }
+        return null;
+    }
+
+    List<Result> runAll(List<String> scripts) {
+        Result[] results = new Result[scripts.size()];
+        pool.submit(() -> IntStream.range(0, results.length).parallel()
+                .forEach(i -> results[i] = runFile(scripts.get(i)))).join();
+        return Arrays.asList(results);
+    }
+
+    // Streams the script's output to its target as it runs, so output size is not bound
+    // by the heap. A script that fails in any way is reported as one error; the others
+    // still run.
+    Result runFile(String script) {
+        if (script.equals("-")) {
+            PrintStream out = new PrintStream(new BufferedOutputStream(System.out, 1 << 16), false, StandardCharsets.UTF_8);
+            return execute(script, out);
+        }
+        Path target = outputPath(script).toAbsolutePath();
+        try {
+            Files.createDirectories(target.getParent());
+            try (PrintStream out = new PrintStream(new BufferedOutputStream(Files.newOutputStream(target), 1 << 16),
+                    false, StandardCharsets.UTF_8)) {
+                return execute(script, out);
+            }
+        } catch (IOException e) {
+            System.err.println("Cannot write " + target + ": " + e.getMessage());
+            return new Result(script, 0, 1, "n/a");
+        }
+    }
+
+    private Result execute(String script, PrintStream out) {
+        Result result;
+        try {
+            List<String> lines = script.equals("-")
+                    ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)).lines().collect(Collectors.toList())
+                    : Files.readAllLines(Paths.get(script), StandardCharsets.UTF_8);
+            result = run(script, lines, vehicle.get(), maxTicks, out);
+        } catch (IOException | UncheckedIOException e) {
+            out.println("Error: " + e.getMessage());
+            result = new Result(script, 0, 1, "n/a");
+        } catch (RuntimeException e) {
+            out.println("Error: " + e);
+            result = new Result(script, 0, 1, "n/a");
+        }
+        out.flush();
+        if (out.checkError()) return new Result(script, result.commands, result.errors + 1, result.stage);
+        return result;
+    }
+
+    static Result run(String script, List<String> lines, Rocket rocket, long maxTicks, PrintStream out) {
+        rocket.addObserver(new ConsoleObserver(out));
+        boolean[] exit = new boolean[1];
+        TickBudget budget = new TickBudget(maxTicks);
+        CommandRouter router = new CommandRouter();
+        router.register("start_checks", new StartChecks());
+        router.register("launch", new Launch());
+        router.register("fast_forward", (TokenCommand) (a, ctx) -> {
+            if (a.count() < 2) throw new IllegalArgumentException("fast_forward <seconds>");
+            budget.run(ctx, a.parseInt(1), ctx::fastForward);
+        });
+        router.register("tick", (TokenCommand) (a, ctx) -> budget.run(ctx, 1, n -> ctx.tick()));
+        router.register("exit", (TokenCommand) (a, ctx) -> exit[0] = true);
+        int commands = 0, errors = 0;
+        for (int i = 0; i < lines.size() && !exit[0] && !budget.exhausted; i++) {
+            String line = lines.get(i).strip();
+            if (line.isEmpty() || line.charAt(0) == '#') continue;
+            commands++;
+            try {
+                router.handle(line, rocket);
+            } catch (RuntimeException e) {
+                out.println("Error: " + e.getMessage());
+                errors++;
+            }
+        }
+        return new Result(script, commands, errors, rocket.getStage());
+    }
+
+    // Ticks a script has run, measured on the rocket's clock, against its limit.
+    private static final class TickBudget {
+        private final long limit;
+        private long used;
+        boolean exhausted;
+        TickBudget(long limit) { this.limit = limit; }
+
+        // Runs n ticks through advance, or as many as are left. A terminal rocket does no
+        // work when ticked, so it is not held to the limit.
+        void run(Rocket rocket, int n, IntConsumer advance) {
+            int allowed = rocket.isTerminal() ? n : (int) Math.min(n, limit - used);
+            int before = rocket.getTime();
+            if (allowed > 0) advance.accept(allowed);
+            used += rocket.getTime() - before;
+            if (allowed < n && !rocket.isTerminal()) {
+                exhausted = true;
+                throw new IllegalStateException("script exceeds its limit of " + limit + " ticks");
+            }
+        }
     }
 }
 
 public class RocketSimulator {
+    private static final String USAGE = "Usage: RocketSimulator [--vehicle FILE] [realtime|max|step|<N>x]";
+
     public static void main(String[] args) {
-        RocketContext rocket = new RocketContext();
-        rocket.addObserver(new ConsoleObserver());
+        if (args.length > 0 && args[0].equals("--batch")) { System.exit(BatchRunner.runCli(args)); }
+        Supplier<Rocket> vehicle = RocketContext::new;
+        if (args.length > 0 && args[0].equals("--vehicle")) {
+            if (args.length < 2) {
+                System.err.println(USAGE);
+                System.exit(2);
+            }
+            vehicle = vehicle(args[1]);
+            if (vehicle == null) System.exit(2);
+            args = Arrays.copyOfRange(args, 2, args.length);
+        }
+        if (args.length > 1) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        Rocket rocket = vehicle.get();
+        // Printing runs on the bus's subscriber thread, off the ticking thread. BLOCK keeps
+        // every line: the ticking thread only waits once the console is a full ring behind.
+        // Everything the actor prints goes through the bus so that it stays in order, and
+        // the exit command's System.exit drains it through the shutdown hook.
+        TelemetryBus console = new TelemetryBus(1 << 12);
+        console.subscribe(new ConsoleObserver(), Backpressure.BLOCK);
+        rocket.addObserver(console);
+        Runtime.getRuntime().addShutdownHook(new Thread(console::close));
 
         CommandRouter router = new CommandRouter();
         router.register("start_checks", new StartChecks());
@@ -164,18 +1667,45 @@ public class RocketSimulator {
         router.register("tick", new Tick());
         router.register("exit", new Exit());
 
-        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
-        scheduler.scheduleAtFixedRate(rocket::tick, 1, 1, TimeUnit.SECONDS);
+        String mode = args.length > 0 ? args[0] : "realtime";
+        // The mode is checked before the actor's thread starts; the clock only ticks the
+        // actor once started, by which time it is set. A stepped clock is only advanced by
+        // the step command, which already runs on the actor's owner thread, so it ticks
+        // the rocket directly and keeps input order.
+        RocketActor[] owner = new RocketActor[1];
+        SimulationClock clock;
+        try {
+            clock = SimulationClock.parse(mode, mode.equals("step") ? rocket::tick : () -> owner[0].tick());
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        router.register("clock", (a, ctx) -> console.info(clock.report()));
+        router.register("step", (TokenCommand) (a, ctx) -> clock.step(a.count() > 1 ? a.parseInt(1) : 1));
 
-        Scanner sc = new Scanner(System.in);
-        System.out.println("Commands: start_checks, launch, fast_forward X, tick, exit");
-        while (true) {
-            try {
-                String line = sc.nextLine();
-                router.handle(line, rocket);
-            } catch (Exception e) {
-                System.out.println("Error: " + e.getMessage());
-            }
+        RocketActor actor = owner[0] = new RocketActor(rocket, router, console::error);
+        try {
+            System.out.println("Commands: start_checks, launch, fast_forward X, tick, step [N], clock, exit");
+            clock.start();
+            Scanner sc = new Scanner(System.in);
+            while (sc.hasNextLine()) actor.command(sc.nextLine());
+        } finally {
+            clock.close();
+            actor.close();
+            console.close();
+        }
+    }
+
+    // Makes TableRockets from a flight table file, or prints why it cannot and returns null.
+    static Supplier<Rocket> vehicle(String file) {
+        try {
+            FlightTable table = FlightTable.read(Paths.get(file));
+            return () -> new TableRocket(table);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Cannot load vehicle " + file + ": " + e.getMessage());
+            return null;
         }
     }
 }
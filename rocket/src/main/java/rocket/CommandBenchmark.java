@@ -0,0 +1,77 @@
+package rocket;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Command parsing on the calling thread, and commands and ticks sent to a RocketActor.
+// The actor cases wait for the owner to drain each invocation's messages.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class CommandBenchmark {
+    private static final String[] LINES = { "start_checks", "  tick ", "fast_forward 0" };
+    private static final int SENDS = 1 << 10;
+
+    private CommandRouter router;
+    private RocketContext ctx, owned;
+    private RocketActor actor;
+
+    @Setup
+    public void setUp() {
+        router = new CommandRouter();
+        router.register("start_checks", new StartChecks());
+        router.register("fast_forward", new FastForward());
+        router.register("tick", new Tick());
+        ctx = new RocketContext();
+        owned = new RocketContext();
+        actor = new RocketActor(owned, router);
+    }
+
+    @TearDown
+    public void tearDown() {
+        actor.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(3)
+    public int routerHandle() {
+        for (String line : LINES) router.handle(line, ctx);
+        return ctx.getTime();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(3 * SENDS)
+    public int actorCommand() throws InterruptedException {
+        for (int i = 0; i < SENDS; i++) for (String line : LINES) actor.command(line);
+        return drain();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SENDS)
+    public int actorTick() throws InterruptedException {
+        for (int i = 0; i < SENDS; i++) actor.tick();
+        return drain();
+    }
+
+    private int drain() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        actor.tell(done::countDown);
+        done.await();
+        return owned.getTime();
+    }
+}
@@ -0,0 +1,107 @@
+package rocket;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// fastForward in its per-tick and closed-form paths, whole flights on both engines,
+// and the batch engine. The fastForward cases run on launched rockets that cruise in
+// one stage forever, so every call does live work.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class FlightBenchmark {
+    private static final int BATCH = 1 << 12, JUMP = 1 << 20;
+    // Separates on the first tick, then climbs and burns nothing, so it never reaches orbit.
+    static final LaunchProfile STAGE2_CRUISE = new LaunchProfile(100, 0, 200, 0, 0, 0, 1);
+
+    private RocketContext perTick, stage1, stage2;
+    private FlightTable vehicle;
+    private RocketBatch batch;
+
+    @Setup
+    public void setUp() {
+        vehicle = FlightTable.compile(FlightTable.DEFAULT_VEHICLE);
+        batch = new RocketBatch(BATCH, TickBenchmark.CRUISE);
+        batch.launchAll();
+    }
+
+    @Setup(Level.Iteration)
+    public void launch() {
+        perTick = launched(TickBenchmark.CRUISE, new NoopObserver());
+        stage1 = launched(TickBenchmark.CRUISE, new NoopObserver.Summary());
+        stage2 = launched(STAGE2_CRUISE, new NoopObserver.Summary());
+    }
+
+    private static RocketContext launched(LaunchProfile profile, RocketObserver observer) {
+        RocketContext ctx = new RocketContext(profile);
+        ctx.addObserver(observer);
+        ctx.launch();
+        ctx.tick();
+        return ctx;
+    }
+
+    // Per tick: an observer that wants every tick rules out the jump.
+    @Benchmark
+    @OperationsPerInvocation(1 << 10)
+    public int fastForwardPerTick() {
+        perTick.fastForward(1 << 10);
+        return perTick.getTime();
+    }
+
+    // Per call: 2^20 Stage 1 ticks in one closed-form jump. The rocket is relaunched
+    // before its clock would overflow, about once every 2000 calls.
+    @Benchmark
+    public int fastForwardJumpStage1() {
+        if (stage1.getTime() > Integer.MAX_VALUE - JUMP) stage1 = launched(TickBenchmark.CRUISE, new NoopObserver.Summary());
+        stage1.fastForward(JUMP);
+        return stage1.getTime();
+    }
+
+    // Per call: as above, in Stage 2.
+    @Benchmark
+    public int fastForwardJumpStage2() {
+        if (stage2.getTime() > Integer.MAX_VALUE - JUMP) stage2 = launched(STAGE2_CRUISE, new NoopObserver.Summary());
+        stage2.fastForward(JUMP);
+        return stage2.getTime();
+    }
+
+    @Benchmark
+    public int contextToOrbit() {
+        RocketContext ctx = new RocketContext();
+        ctx.addObserver(new NoopObserver());
+        ctx.launch();
+        ctx.fastForward(1_000);
+        return ctx.getTime();
+    }
+
+    @Benchmark
+    public int tableRocketToOrbit() {
+        TableRocket rocket = new TableRocket(vehicle);
+        rocket.addObserver(new NoopObserver());
+        rocket.launch();
+        rocket.fastForward(1_000);
+        return rocket.getTime();
+    }
+
+    // Per rocket.
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int batchTick() {
+        batch.tick();
+        return batch.getTime(0);
+    }
+}
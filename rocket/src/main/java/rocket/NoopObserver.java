@@ -0,0 +1,13 @@
+package rocket;
+
+// Observer that only reads the telemetry, so the benchmarks measure notification cost.
+class NoopObserver implements RocketObserver {
+    long sink;
+    public void update(Telemetry t) { sink += t.getTime(); }
+    public void info(String msg) { }
+    public void error(String msg) { }
+
+    static final class Summary extends NoopObserver {
+        public boolean wantsEveryTick() { return false; }
+    }
+}
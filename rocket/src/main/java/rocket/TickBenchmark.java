@@ -0,0 +1,45 @@
+package rocket;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// RocketContext.tick against the number of observers. Stage 1 with no burn or climb
+// never separates, so every tick runs a live update and notifies the observers.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class TickBenchmark {
+    static final LaunchProfile CRUISE = new LaunchProfile(100, 0, 0, 1, 0, 0, 1);
+
+    @Param({ "0", "1", "8" })
+    public int observers;
+
+    private RocketContext ctx;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        ctx = new RocketContext(CRUISE);
+        for (int i = 0; i < observers; i++) ctx.addObserver(new NoopObserver());
+        ctx.launch();
+    }
+
+    @Benchmark
+    public int tick() {
+        ctx.tick();
+        return ctx.getTime();
+    }
+}
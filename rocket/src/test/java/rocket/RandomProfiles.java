@@ -0,0 +1,23 @@
+package rocket;
+
+import java.util.Random;
+
+// Seeded launch profiles for the brute-force equivalence tests. Rates are whole most of
+// the time, so RocketContext.fastForward takes its jumps, and fractional otherwise.
+final class RandomProfiles {
+    private RandomProfiles() { }
+
+    static LaunchProfile profile(Random rnd) {
+        return new LaunchProfile(rnd.nextInt(200), rnd.nextInt(6), rate(rnd, 40), rate(rnd, 2000),
+                rnd.nextInt(6), rate(rnd, 20), rate(rnd, 800));
+    }
+
+    private static double rate(Random rnd, int bound) {
+        int whole = rnd.nextInt(bound + 1) - bound / 10;
+        return rnd.nextInt(4) == 0 ? whole + rnd.nextInt(10) / 10.0 : whole;
+    }
+
+    static int ticks(Random rnd) {
+        return rnd.nextInt(8) == 0 ? rnd.nextInt(1 << 16) : rnd.nextInt(40);
+    }
+}
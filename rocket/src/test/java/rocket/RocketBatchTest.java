@@ -0,0 +1,56 @@
+package rocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class RocketBatchTest {
+
+    @Test
+    void batchMatchesOneContextPerRocket() {
+        Random rnd = new Random(14);
+        for (int round = 0; round < 3000; round++) {
+            LaunchProfile profile = RandomProfiles.profile(rnd);
+            int size = 1 + rnd.nextInt(20);
+            RocketBatch batch = new RocketBatch(size, profile);
+            RocketContext[] rockets = new RocketContext[size];
+            for (int i = 0; i < size; i++) rockets[i] = new RocketContext(profile);
+            StringBuilder script = new StringBuilder();
+            for (int op = 0; op < 30; op++) {
+                switch (rnd.nextInt(6)) {
+                    case 0 -> {
+                        int i = rnd.nextInt(size);
+                        script.append(" launch ").append(i);
+                        batch.launch(i);
+                        rockets[i].launch();
+                    }
+                    case 1 -> {
+                        script.append(" launchAll");
+                        batch.launchAll();
+                        for (RocketContext r : rockets) r.launch();
+                    }
+                    case 2, 3 -> {
+                        script.append(" tick");
+                        batch.tick();
+                        for (RocketContext r : rockets) r.tick();
+                    }
+                    default -> {
+                        int n = RandomProfiles.ticks(rnd);
+                        script.append(" fastForward ").append(n);
+                        batch.fastForward(n);
+                        for (RocketContext r : rockets) r.fastForward(n);
+                    }
+                }
+                for (int i = 0; i < size; i++) {
+                    String where = "rocket " + i + " after" + script;
+                    assertEquals(rockets[i].getStage(), batch.getStage(i), where);
+                    assertEquals(rockets[i].getFuel(), batch.getFuel(i), where);
+                    assertEquals(rockets[i].getAltitude(), batch.getAltitude(i), where);
+                    assertEquals(rockets[i].getSpeed(), batch.getSpeed(i), where);
+                    assertEquals(rockets[i].getTime(), batch.getTime(i), where);
+                }
+            }
+        }
+    }
+}
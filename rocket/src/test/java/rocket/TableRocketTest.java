@@ -0,0 +1,90 @@
+package rocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class TableRocketTest {
+
+    @Test
+    void defaultVehicleMatchesTheStateMachine() {
+        Random rnd = new Random(18);
+        FlightTable table = FlightTable.compile(FlightTable.DEFAULT_VEHICLE);
+        for (int round = 0; round < 5000; round++)
+            compare(rnd, new RocketContext(), new TableRocket(table), rnd.nextBoolean());
+    }
+
+    @Test
+    void randomVehiclesMatchTheStateMachine() {
+        Random rnd = new Random(19);
+        for (int round = 0; round < 5000; round++) {
+            LaunchProfile profile = RandomProfiles.profile(rnd);
+            compare(rnd, new RocketContext(profile), new TableRocket(FlightTable.compile(vehicle(profile))), rnd.nextBoolean());
+        }
+    }
+
+    // Drives both rockets with the same random script and compares the observer streams.
+    private static void compare(Random rnd, Rocket expected, Rocket actual, boolean everyTick) {
+        Recorder want = new Recorder(everyTick), got = new Recorder(everyTick);
+        expected.addObserver(want);
+        actual.addObserver(got);
+        StringBuilder script = new StringBuilder(everyTick ? "every tick:" : "summary:");
+        for (int op = 0; op < 20; op++) {
+            switch (rnd.nextInt(6)) {
+                case 0 -> {
+                    script.append(" checks");
+                    expected.checks();
+                    actual.checks();
+                }
+                case 1 -> {
+                    script.append(" launch");
+                    expected.launch();
+                    actual.launch();
+                }
+                case 2, 3 -> {
+                    script.append(" tick");
+                    expected.tick();
+                    actual.tick();
+                }
+                default -> {
+                    // shorter than RandomProfiles.ticks: every-tick observers see each of them
+                    int n = rnd.nextInt(8) == 0 ? rnd.nextInt(1 << 11) : rnd.nextInt(40);
+                    script.append(" fastForward ").append(n);
+                    expected.fastForward(n);
+                    actual.fastForward(n);
+                }
+            }
+            assertEquals(want.events, got.events, script.toString());
+            want.events.clear();
+            got.events.clear();
+            assertEquals(expected.isTerminal(), actual.isTerminal(), script.toString());
+        }
+    }
+
+    // The built-in vehicle with the profile's fuel and rates.
+    private static String vehicle(LaunchProfile p) {
+        return FlightTable.DEFAULT_VEHICLE
+                .replace("fuel 100", "fuel " + p.getFuel())
+                .replace("burn 2 climb 10 accel 1000",
+                        "burn " + p.getStage1Burn() + " climb " + p.getStage1Climb() + " accel " + p.getStage1Accel())
+                .replace("burn 1 climb 5 accel 400",
+                        "burn " + p.getStage2Burn() + " climb " + p.getStage2Climb() + " accel " + p.getStage2Accel());
+    }
+
+    private static final class Recorder implements RocketObserver {
+        final List<String> events = new ArrayList<>();
+        private final boolean everyTick;
+
+        Recorder(boolean everyTick) { this.everyTick = everyTick; }
+
+        public void update(Telemetry t) {
+            events.add(t.getStage() + " " + t.getFuel() + " " + t.getAltitude() + " " + t.getSpeed() + " " + t.getTime());
+        }
+        public boolean wantsEveryTick() { return everyTick; }
+        public void info(String msg) { events.add("info " + msg); }
+        public void error(String msg) { events.add("error " + msg); }
+    }
+}
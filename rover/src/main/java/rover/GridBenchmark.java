@@ -0,0 +1,56 @@
+package rover;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Grid.isBlocked against the number of point obstacles, through both the Position and
+// the packed-long entry points. Each invocation looks up every probe once.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class GridBenchmark {
+    @Param({ "10", "1000", "100000" })
+    public int obstacles;
+
+    private Grid grid;
+    private Position[] positions;
+    private long[] probes;
+
+    @Setup
+    public void setUp() {
+        grid = Probes.randomGrid(new Random(42), obstacles);
+        positions = Probes.positions(7);
+        probes = Probes.packed(7);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Probes.COUNT)
+    public int isBlockedPosition() {
+        int hits = 0;
+        for (Position p : positions) if (grid.isBlocked(p)) hits++;
+        return hits;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Probes.COUNT)
+    public int isBlockedPacked() {
+        int hits = 0;
+        for (long p : probes) if (grid.isBlocked(p)) hits++;
+        return hits;
+    }
+}
@@ -0,0 +1,30 @@
+package rover;
+
+import java.util.Random;
+
+// Seeded random cells on a 1024 x 1024 map, shared by the terrain benchmarks.
+final class Probes {
+    static final int SIZE = 1024, COUNT = 1 << 16;
+
+    private Probes() { }
+
+    static Position[] positions(long seed) {
+        Random rnd = new Random(seed);
+        Position[] probes = new Position[COUNT];
+        for (int i = 0; i < COUNT; i++) probes[i] = new Position(rnd.nextInt(SIZE), rnd.nextInt(SIZE));
+        return probes;
+    }
+
+    static long[] packed(long seed) {
+        Position[] positions = positions(seed);
+        long[] probes = new long[COUNT];
+        for (int i = 0; i < COUNT; i++) probes[i] = positions[i].pack();
+        return probes;
+    }
+
+    static Grid randomGrid(Random rnd, int obstacles) {
+        Grid grid = new Grid(SIZE, SIZE);
+        for (int i = 0; i < obstacles; i++) grid.add(new Obstacle(new Position(rnd.nextInt(SIZE), rnd.nextInt(SIZE))));
+        return grid;
+    }
+}
@@ -0,0 +1,52 @@
+package rover;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Grid.isBlocked over a mix of rectangle and circle regions, which go through the
+// grid's RegionIndex.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class RegionBenchmark {
+    @Param({ "10", "1000", "100000" })
+    public int regions;
+
+    private Grid grid;
+    private long[] probes;
+
+    @Setup
+    public void setUp() {
+        Random rnd = new Random(42);
+        grid = new Grid(Probes.SIZE, Probes.SIZE);
+        for (int i = 0; i < regions; i++) {
+            int x = rnd.nextInt(Probes.SIZE), y = rnd.nextInt(Probes.SIZE), size = 1 + rnd.nextInt(40);
+            grid.add(i % 2 == 0 ? new RectangleRegion(x, y, x + size, y + size) : new CircleRegion(new Position(x, y), size / 2));
+        }
+        probes = Probes.packed(7);
+        grid.isBlocked(probes[0]); // builds the index outside the measurement
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Probes.COUNT)
+    public int isBlocked() {
+        int hits = 0;
+        for (long p : probes) if (grid.isBlocked(p)) hits++;
+        return hits;
+    }
+}
@@ -0,0 +1,107 @@
+package rover;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Rover movement, compiled programs and direction changes.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class RoverBenchmark {
+    private static final int TURNS = 1 << 16;
+
+    private Grid grid;
+    private Rover rover, explorer;
+    private int moves;
+    private Program square;
+    private Rover patrol;
+    private Program loop;
+    private Grid open;
+    private Program stride;
+    private RepeatedProgram drift;
+    private boolean[] turns;
+
+    @Setup
+    public void setUp() {
+        Random rnd = new Random(42);
+        grid = Probes.randomGrid(rnd, 1_000);
+        rover = new Rover(new Position(512, 512), Direction.NORTH, grid);
+        explorer = new Rover(new Position(0, 0), Direction.NORTH, new ProceduralTerrain(42, 0.6));
+        // A 200-cell square walked from a fresh rover, so the moves are not piled up
+        // against the map edge.
+        square = CommandCompiler.compile("M".repeat(200) + "R");
+        patrol = new Rover(new Position(1, 1), Direction.EAST, new Grid(64, 64));
+        loop = CommandCompiler.compile("MMMMMMMMMMLMMMMMMMMMMRMMMMML");
+        open = new Grid(4096, 4096);
+        stride = CommandCompiler.compile("MRMRMRMR".repeat(250) + "M");
+        drift = new RepeatedProgram(stride);
+        turns = new boolean[TURNS];
+        for (int i = 0; i < TURNS; i++) turns[i] = rnd.nextBoolean();
+    }
+
+    @Benchmark
+    public long move() {
+        rover.move();
+        if ((++moves & 255) == 0) rover.turnRight();
+        return rover.getPackedPosition();
+    }
+
+    @Benchmark
+    public long moveOnProceduralTerrain() {
+        explorer.move();
+        if ((++moves & 255) == 0) explorer.turnRight();
+        return explorer.getPackedPosition();
+    }
+
+    // Per command of the square: 64 laps of 201 commands.
+    @Benchmark
+    @OperationsPerInvocation(201 * 64)
+    public long programMoveN() {
+        Rover walker = new Rover(new Position(400, 400), Direction.NORTH, grid);
+        for (int i = 0; i < 64; i++) walker.execute(square);
+        return walker.getPackedPosition();
+    }
+
+    // Per call: a million passes of a loop that cycles back to its start.
+    @Benchmark
+    public long cycleRunnerRepeat() {
+        return CycleRunner.repeat(patrol, loop, 1_000_000);
+    }
+
+    // Per call: a 2001-command program run 4000 times, stepped and through RepeatedProgram.
+    @Benchmark
+    public long programStepped() {
+        Rover r = new Rover(new Position(2048, 0), Direction.NORTH, open);
+        for (int i = 0; i < 4000; i++) r.execute(stride);
+        return r.getPackedPosition();
+    }
+
+    @Benchmark
+    public long programRepeated() {
+        Rover r = new Rover(new Position(2048, 0), Direction.NORTH, open);
+        drift.apply(r, 4000);
+        return r.getPackedPosition();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TURNS)
+    public int directionLeftRight() {
+        Direction d = Direction.NORTH;
+        for (boolean left : turns) d = left ? d.left() : d.right();
+        return d.ordinal();
+    }
+}
@@ -0,0 +1,54 @@
+package rover;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Lookups on the terrains that are not plain grids.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class TerrainBenchmark {
+    private ProceduralTerrain world;
+    private MutableTerrain mutable;
+    private long[] probes;
+
+    @Setup
+    public void setUp() {
+        world = new ProceduralTerrain(42, 0.6);
+        Random rnd = new Random(42);
+        mutable = new MutableTerrain(Probes.SIZE, Probes.SIZE);
+        for (int i = 0; i < 1_000; i++) mutable.add(rnd.nextInt(Probes.SIZE), rnd.nextInt(Probes.SIZE));
+        probes = Probes.packed(7);
+    }
+
+    // Random probes keep missing the tile cache, so this mostly measures tile generation.
+    @Benchmark
+    @OperationsPerInvocation(Probes.COUNT)
+    public int proceduralRandom() {
+        int hits = 0;
+        for (long p : probes) if (world.isBlocked(p)) hits++;
+        return hits;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Probes.COUNT)
+    public int mutable() {
+        int hits = 0;
+        for (long p : probes) if (mutable.isBlocked(p)) hits++;
+        return hits;
+    }
+}
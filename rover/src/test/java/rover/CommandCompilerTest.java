@@ -0,0 +1,40 @@
+package rover;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class CommandCompilerTest {
+
+    @Test
+    void compiledProgramMatchesSingleSteps() {
+        Random rnd = new Random(3);
+        for (int round = 0; round < 2000; round++) {
+            int w = 1 + rnd.nextInt(12), h = 1 + rnd.nextInt(12);
+            Grid grid = RandomMaps.grid(rnd, w, h, rnd.nextInt(w * h / 2 + 1));
+            String commands = RandomMaps.commands(rnd, rnd.nextInt(40));
+            Rover stepped = RandomMaps.rover(rnd, grid, w, h);
+            Rover compiled = new Rover(stepped.getPackedPosition(), stepped.getDirection(), grid);
+            stepped.execute(RandomMaps.raw(commands));
+            compiled.execute(CommandCompiler.compile(commands));
+            assertEquals(stepped.report(), compiled.report(), commands);
+        }
+    }
+
+    @Test
+    void fusesRunsAndDropsCancelledTurns() {
+        Program program = CommandCompiler.compile("MM M LRRL R LLLL MRRR");
+        assertEquals(4, program.getOps().size());
+        assertEquals(3, ((MoveN) program.getOps().get(0)).getSteps());
+        assertEquals(1, ((Rotate) program.getOps().get(1)).getQuarterTurns());
+        assertEquals(1, ((MoveN) program.getOps().get(2)).getSteps());
+        assertEquals(3, ((Rotate) program.getOps().get(3)).getQuarterTurns());
+    }
+
+    @Test
+    void rejectsUnknownCommands() {
+        assertThrows(IllegalArgumentException.class, () -> CommandCompiler.compile("MMX"));
+    }
+}
@@ -0,0 +1,37 @@
+package rover;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class CycleRunnerTest {
+
+    @Test
+    void repeatMatchesPlainPasses() {
+        Random rnd = new Random(21);
+        for (int round = 0; round < 20_000; round++) {
+            int w = 1 + rnd.nextInt(10), h = 1 + rnd.nextInt(10);
+            Grid grid = RandomMaps.grid(rnd, w, h, rnd.nextInt(w * h / 3 + 1));
+            String commands = RandomMaps.commands(rnd, rnd.nextInt(12));
+            Command program = rnd.nextBoolean() ? CommandCompiler.compile(commands) : RandomMaps.raw(commands);
+            long times = rnd.nextInt(4) == 0 ? rnd.nextInt(3) : rnd.nextInt(500);
+            Rover plain = RandomMaps.rover(rnd, grid, w, h);
+            Rover cycled = new Rover(plain.getPackedPosition(), plain.getDirection(), grid);
+            for (long pass = 0; pass < times; pass++) plain.execute(program);
+            long simulated = CycleRunner.repeat(cycled, program, times);
+            assertEquals(plain.report(), cycled.report(), commands + " x" + times);
+            assertTrue(simulated <= Math.max(0, times), commands + " x" + times);
+        }
+    }
+
+    @Test
+    void hugeCountsStopAtTheFirstRepeatedState() {
+        Rover rover = new Rover(new Position(0, 0), Direction.NORTH, new Grid(8, 8));
+        long simulated = CycleRunner.repeat(rover, CommandCompiler.compile("MMR"), Long.MAX_VALUE);
+        assertEquals(4, simulated);
+        // Long.MAX_VALUE % 4 == 3 passes: (0,2) E, (2,2) S, (2,0) W
+        assertEquals("Rover is at (2, 0) facing WEST", rover.report());
+    }
+}
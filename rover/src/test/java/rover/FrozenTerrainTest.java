@@ -0,0 +1,60 @@
+package rover;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class FrozenTerrainTest {
+
+    @Test
+    void frozenTreeBlocksTheSameCellsAsTheGrid() {
+        Random rnd = new Random(9);
+        for (int round = 0; round < 1000; round++) {
+            int w = rnd.nextInt(20), h = rnd.nextInt(20);
+            Grid grid = tree(rnd, w, h, 2);
+            Terrain frozen = FrozenTerrain.freeze(grid);
+            for (int y = -2; y < h + 2; y++) {
+                for (int x = -2; x < w + 2; x++) {
+                    Position p = new Position(x, y);
+                    assertEquals(grid.isBlocked(p), frozen.isBlocked(p), p + " in round " + round);
+                    assertEquals(grid.isBlocked(p.pack()), frozen.isBlocked(p.pack()), p + " in round " + round);
+                }
+            }
+        }
+    }
+
+    @Test
+    void leavesOtherTerrainAndOversizedGridsAlone() {
+        Terrain empty = new EmptyCell();
+        assertSame(empty, FrozenTerrain.freeze(empty));
+        Grid huge = new Grid(1 << 16, 1 << 16);
+        assertSame(huge, FrozenTerrain.freeze(huge));
+        Grid negative = new Grid(-1, 5);
+        assertSame(negative, FrozenTerrain.freeze(negative));
+    }
+
+    // Obstacles, regions, empty cells, a residual terrain, and nested grids that may be
+    // smaller, larger, negative-size or already frozen.
+    private static Grid tree(Random rnd, int w, int h, int depth) {
+        Grid grid = new Grid(w, h);
+        int children = rnd.nextInt(12);
+        for (int i = 0; i < children; i++) {
+            int x = rnd.nextInt(w + 4) - 2, y = rnd.nextInt(h + 4) - 2;
+            switch (rnd.nextInt(depth > 0 ? 8 : 6)) {
+                case 0, 1 -> grid.add(new Obstacle(new Position(x, y)));
+                case 2 -> grid.add(new RectangleRegion(x, y, x + rnd.nextInt(4), y + rnd.nextInt(4)));
+                case 3 -> grid.add(new CircleRegion(new Position(x, y), rnd.nextInt(3)));
+                case 4 -> grid.add(new EmptyCell());
+                case 5 -> {
+                    int row = y;
+                    grid.add(pos -> pos.getY() == row && pos.getX() % 3 == 0);
+                }
+                case 6 -> grid.add(tree(rnd, rnd.nextInt(w + 5) - 2, rnd.nextInt(h + 5) - 2, depth - 1));
+                default -> grid.add(FrozenTerrain.freeze(tree(rnd, rnd.nextInt(w + 3), rnd.nextInt(h + 3), depth - 1)));
+            }
+        }
+        return grid;
+    }
+}
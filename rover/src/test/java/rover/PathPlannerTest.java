@@ -0,0 +1,62 @@
+package rover;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class PathPlannerTest {
+
+    @Test
+    void plansAreAsShortAsBreadthFirstSearch() {
+        Random rnd = new Random(8);
+        for (int round = 0; round < 3000; round++) {
+            int w = 1 + rnd.nextInt(10), h = 1 + rnd.nextInt(10);
+            Grid grid = RandomMaps.grid(rnd, w, h, rnd.nextInt(w * h / 2 + 1));
+            Rover rover = RandomMaps.rover(rnd, grid, w, h);
+            Position goal = new Position(rnd.nextInt(w), rnd.nextInt(h));
+            String where = rover.report() + " to " + goal + " on " + w + "x" + h;
+
+            int expected = commandsToReach(grid, w, h, rover, goal);
+            Optional<List<Command>> plan = new PathPlanner(grid, w, h).plan(rover, goal);
+            assertEquals(expected >= 0, plan.isPresent(), where);
+            if (plan.isEmpty()) continue;
+            assertEquals(expected, plan.get().size(), where);
+            for (Command c : plan.get()) rover.execute(c);
+            assertEquals(goal, rover.getPosition(), where);
+        }
+    }
+
+    // Fewest Move/Left/Right commands from the rover's state to any heading on goal, or -1.
+    private static int commandsToReach(Terrain terrain, int w, int h, Rover rover, Position goal) {
+        if (terrain.isBlocked(goal)) return -1;
+        int[] dist = new int[w * h * 4];
+        Arrays.fill(dist, -1);
+        int start = state(w, rover.getPosition().getX(), rover.getPosition().getY(), rover.getDirection().ordinal());
+        dist[start] = 0;
+        ArrayDeque<Integer> queue = new ArrayDeque<>(List.of(start));
+        while (!queue.isEmpty()) {
+            int s = queue.poll(), d = s & 3, x = (s >> 2) % w, y = (s >> 2) / w;
+            if (x == goal.getX() && y == goal.getY()) return dist[s];
+            Direction dir = Direction.values()[d];
+            int nx = x + dir.getDx(), ny = y + dir.getDy();
+            int[] next = {
+                state(w, x, y, (d + 3) & 3),
+                state(w, x, y, (d + 1) & 3),
+                nx >= 0 && nx < w && ny >= 0 && ny < h && !terrain.isBlocked(new Position(nx, ny)) ? state(w, nx, ny, d) : -1,
+            };
+            for (int n : next) {
+                if (n < 0 || dist[n] >= 0) continue;
+                dist[n] = dist[s] + 1;
+                queue.add(n);
+            }
+        }
+        return -1;
+    }
+
+    private static int state(int w, int x, int y, int d) { return (y * w + x) << 2 | d; }
+}
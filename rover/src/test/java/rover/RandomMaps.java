@@ -0,0 +1,38 @@
+package rover;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Small seeded maps and command strings for the brute-force equivalence tests.
+final class RandomMaps {
+    private RandomMaps() { }
+
+    static Grid grid(Random rnd, int width, int height, int obstacles) {
+        Grid grid = new Grid(width, height);
+        for (int i = 0; i < obstacles; i++) grid.add(new Obstacle(new Position(rnd.nextInt(width), rnd.nextInt(height))));
+        return grid;
+    }
+
+    static String commands(Random rnd, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) sb.append("MMMLR".charAt(rnd.nextInt(5)));
+        return sb.toString();
+    }
+
+    // One Move/Left/Right per character, the way the program reads before compiling.
+    static Program raw(String commands) {
+        List<Command> ops = new ArrayList<>();
+        for (char c : commands.toCharArray()) {
+            if (c == 'M') ops.add(new Move());
+            else if (c == 'L') ops.add(new Left());
+            else if (c == 'R') ops.add(new Right());
+        }
+        return new Program(ops);
+    }
+
+    static Rover rover(Random rnd, Terrain terrain, int width, int height) {
+        return new Rover(new Position(rnd.nextInt(width), rnd.nextInt(height)),
+                Direction.values()[rnd.nextInt(4)], terrain);
+    }
+}
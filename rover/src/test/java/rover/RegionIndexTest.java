@@ -0,0 +1,89 @@
+package rover;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class RegionIndexTest {
+    private static final int SIZE = 200;
+
+    @Test
+    void indexMatchesLinearScan() {
+        Random rnd = new Random(24);
+        for (int round = 0; round < 100; round++) {
+            List<Region> regions = regions(rnd, rnd.nextInt(round < 20 ? 20 : 600));
+            RegionIndex index = new RegionIndex(regions);
+            Grid grid = new Grid(SIZE, SIZE);
+            regions.forEach(grid::add);
+            for (int probe = 0; probe < 1000; probe++) {
+                int x = rnd.nextInt(SIZE + 20) - 10, y = rnd.nextInt(SIZE + 20) - 10;
+                boolean expected = false;
+                for (Region r : regions) expected |= r.contains(x, y);
+                boolean inside = x >= 0 && x < SIZE && y >= 0 && y < SIZE;
+                assertEquals(expected, index.contains(x, y), x + "," + y);
+                assertEquals(expected || !inside, grid.isBlocked(Position.pack(x, y)), x + "," + y);
+
+                int x1 = x + rnd.nextInt(8), y1 = y + rnd.nextInt(8);
+                boolean overlaps = false;
+                for (Region r : regions) overlaps |= r.mayBlock(x, y, x1, y1);
+                assertEquals(overlaps, index.mayBlock(x, y, x1, y1), x + "," + y + ".." + x1 + "," + y1);
+            }
+        }
+    }
+
+    @Test
+    void regionsMatchBruteForceShapes() {
+        Random rnd = new Random(25);
+        for (int round = 0; round < 500; round++) {
+            int cx = rnd.nextInt(40), cy = rnd.nextInt(40), radius = rnd.nextInt(12);
+            CircleRegion circle = new CircleRegion(new Position(cx, cy), radius);
+            for (int y = cy - radius - 2; y <= cy + radius + 2; y++)
+                for (int x = cx - radius - 2; x <= cx + radius + 2; x++)
+                    assertEquals((x - cx) * (x - cx) + (y - cy) * (y - cy) <= radius * radius, circle.contains(x, y));
+        }
+    }
+
+    @Test
+    void shapesAtTheIntLimits() {
+        int min = Integer.MIN_VALUE, max = Integer.MAX_VALUE;
+        PolygonRegion square = new PolygonRegion(List.of(
+                new Position(min, min), new Position(max, min), new Position(max, max), new Position(min, max)));
+        assertTrue(square.contains(0, 0));
+        assertTrue(square.contains(min, max));
+        PolygonRegion triangle = new PolygonRegion(List.of(
+                new Position(min, min), new Position(max, min), new Position(min, max)));
+        assertTrue(triangle.contains(0, -1));
+        assertTrue(triangle.contains(-1, 0));
+        assertFalse(triangle.contains(max, max));
+        CircleRegion circle = new CircleRegion(new Position(max - 5, 0), 5);
+        assertTrue(circle.contains(max, 0));
+        assertFalse(circle.contains(min, 0));
+    }
+
+    private static List<Region> regions(Random rnd, int count) {
+        List<Region> regions = new ArrayList<>(count);
+        while (regions.size() < count) {
+            int x = rnd.nextInt(SIZE + 20) - 10, y = rnd.nextInt(SIZE + 20) - 10, span = 1 + rnd.nextInt(15);
+            switch (rnd.nextInt(3)) {
+                case 0 -> regions.add(new RectangleRegion(x, y, x + rnd.nextInt(span), y + rnd.nextInt(span)));
+                case 1 -> regions.add(new CircleRegion(new Position(x, y), rnd.nextInt(span)));
+                default -> {
+                    List<Position> triangle = List.of(new Position(x, y),
+                            new Position(x + rnd.nextInt(span), y + rnd.nextInt(span)),
+                            new Position(x - rnd.nextInt(span), y + rnd.nextInt(span)));
+                    try {
+                        regions.add(new PolygonRegion(triangle));
+                    } catch (IllegalArgumentException collinear) {
+                        // drawn again
+                    }
+                }
+            }
+        }
+        return regions;
+    }
+}
@@ -0,0 +1,54 @@
+package rover;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Collections;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class RepeatedProgramTest {
+
+    @Test
+    void applyMatchesPlainPasses() {
+        Random rnd = new Random(22);
+        for (int round = 0; round < 30_000; round++) {
+            int w = 1 + rnd.nextInt(64), h = 1 + rnd.nextInt(64);
+            // Sparse maps so both the doubling path and the fallback get exercised.
+            Grid grid = RandomMaps.grid(rnd, w, h, rnd.nextInt(4) == 0 ? 0 : rnd.nextInt(w * h / 8 + 1));
+            String commands = RandomMaps.commands(rnd, rnd.nextInt(12));
+            Command program = rnd.nextBoolean() ? CommandCompiler.compile(commands) : RandomMaps.raw(commands);
+            long times = rnd.nextInt(300);
+            Rover plain = RandomMaps.rover(rnd, grid, w, h);
+            Rover doubled = new Rover(plain.getPackedPosition(), plain.getDirection(), grid);
+            for (long pass = 0; pass < times; pass++) plain.execute(program);
+            new RepeatedProgram(program).apply(doubled, times);
+            assertEquals(plain.report(), doubled.report(), commands + " x" + times);
+        }
+    }
+
+    @Test
+    void powerMatchesTheProgramWrittenOut() {
+        Random rnd = new Random(23);
+        for (int round = 0; round < 2000; round++) {
+            String commands = RandomMaps.commands(rnd, rnd.nextInt(10));
+            Command program = RandomMaps.raw(commands);
+            int times = rnd.nextInt(200);
+            Transform expected = Transform.of(new Program(Collections.nCopies(times, program)));
+            Transform actual = new RepeatedProgram(program).power(times);
+            String what = commands + " x" + times;
+            assertEquals(expected.dx, actual.dx, what);
+            assertEquals(expected.dy, actual.dy, what);
+            assertEquals(expected.turns, actual.turns, what);
+            assertEquals(expected.minX, actual.minX, what);
+            assertEquals(expected.minY, actual.minY, what);
+            assertEquals(expected.maxX, actual.maxX, what);
+            assertEquals(expected.maxY, actual.maxY, what);
+        }
+    }
+
+    @Test
+    void powerRejectsNegativeCounts() {
+        assertThrows(IllegalArgumentException.class, () -> new RepeatedProgram(new Move()).power(-1));
+    }
+}